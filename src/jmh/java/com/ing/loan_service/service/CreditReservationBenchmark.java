@@ -0,0 +1,71 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.LoanServiceApplication;
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.exception.InsufficientCreditException;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.repository.CustomerRepository;
+import com.ing.loan_service.repository.LoanRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64 threads originating loans for one customer on H2. Once the limit (1000 loans) is used up the remaining attempts
+ * are rejected; after the trial the used credit must equal the sum of the created loans, otherwise the run fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+public class CreditReservationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private CustomerRepository customerRepository;
+    private LoanRepository loanRepository;
+    private Long customerId;
+    private CreateLoanRequest createLoanRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LoanServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:credit-benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.hikari.maximum-pool-size=64",
+                        "logging.level.root=WARN")
+                .run();
+        loanService = context.getBean(LoanService.class);
+        customerRepository = context.getBean(CustomerRepository.class);
+        loanRepository = context.getBean(LoanRepository.class);
+
+        customerId = customerRepository.save(new Customer("Hot", "Customer", new BigDecimal("1100000.00"))).getId();
+        createLoanRequest = new CreateLoanRequest(customerId, new BigDecimal("1000.00"), 0.1, "6");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BigDecimal used = customerRepository.findById(customerId).orElseThrow().getUsedCreditLimit();
+        BigDecimal booked = loanRepository.findByCustomerId(customerId).stream()
+                .map(loan -> loan.getLoanAmount())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        context.close();
+        if (used.compareTo(booked) != 0 || used.compareTo(new BigDecimal("1100000.00")) > 0) {
+            throw new IllegalStateException("Credit overrun: used " + used + ", booked " + booked);
+        }
+    }
+
+    @Benchmark
+    public boolean createLoan() {
+        try {
+            loanService.createLoan(createLoanRequest);
+            return true;
+        } catch (InsufficientCreditException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.model.LoanInstallment;
+import com.ing.loan_service.model.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pure penalty/discount math of {@link LoanService#calculateEffectiveAmount}, no repositories involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EffectiveAmountBenchmark {
+
+    @Param({"-60", "0", "45"})
+    private int daysFromDueDate;
+
+    private LoanService loanService;
+    private LoanInstallment installment;
+    private LocalDate paymentDate;
+
+    @Setup
+    public void setUp() {
+        loanService = new LoanService(null, null, null, new ScheduleTemplateCache(), null, null);
+        LocalDate dueDate = LocalDate.of(2025, 1, 1);
+        installment = new LoanInstallment(new BigDecimal("916.67"), dueDate);
+        paymentDate = dueDate.plusDays(daysFromDueDate);
+    }
+
+    @Benchmark
+    public Money calculateEffectiveAmount() {
+        return loanService.calculateEffectiveAmount(installment, paymentDate);
+    }
+}
@@ -0,0 +1,114 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.dto.CursorPage;
+import com.ing.loan_service.dto.LoanResponse;
+import com.ing.loan_service.dto.LoanSummary;
+import com.ing.loan_service.dto.PaymentResult;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.model.Loan;
+import com.ing.loan_service.model.LoanInstallment;
+import com.ing.loan_service.repository.CustomerRepository;
+import com.ing.loan_service.repository.LoanInstallmentRepository;
+import com.ing.loan_service.repository.LoanRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * LoanService hot paths against stub-only Mockito repositories, i.e. pure service cost without the ORM
+ * (listLoans reads a stubbed in-memory portfolio).
+ * Compare with {@link LoanServiceH2Benchmark} to see how much of a call is spent in Hibernate/H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoanServiceBenchmark {
+
+    // the default page size, large enough that every seeded loan fits on the first page
+    private static final int LIST_PAGE_SIZE = 100;
+
+    @Param({"12", "24"})
+    private int numberOfInstallments;
+
+    @Param({"1", "100"})
+    private int loansPerCustomer;
+
+    private LoanService loanService;
+    private CreateLoanRequest createLoanRequest;
+    private BigDecimal paymentAmount;
+
+    @Setup
+    public void setUp() {
+        LoanRepository loanRepository = mock(LoanRepository.class, withSettings().stubOnly());
+        CustomerRepository customerRepository = mock(CustomerRepository.class, withSettings().stubOnly());
+        LoanInstallmentRepository installmentRepository = mock(LoanInstallmentRepository.class, withSettings().stubOnly());
+
+        Customer customer = new Customer("Bench", "Customer", new BigDecimal("9999999999999.00"));
+        customer.setId(1L);
+        Loan loan = new Loan(customer, new BigDecimal("11000.00"), numberOfInstallments);
+        loan.setId(1L);
+
+        List<LoanSummary> customerLoans = new ArrayList<>();
+        for (int i = 0; i < loansPerCustomer; i++) {
+            customerLoans.add(new LoanSummary((long) i + 1, 1L, new BigDecimal("11000.00"), numberOfInstallments,
+                    loan.getCreateDate(), false, 0, new BigDecimal("11000.00"), LocalDate.now().plusMonths(1), 0L));
+        }
+        PortfolioReadModel portfolioReadModel = mock(PortfolioReadModel.class, withSettings().stubOnly());
+        when(portfolioReadModel.get(anyLong()))
+                .thenReturn(new CustomerPortfolio(1L, customer.getCreditLimit(), 0L, customerLoans));
+
+        when(customerRepository.findById(anyLong())).thenReturn(Optional.of(customer));
+        when(customerRepository.reserveCredit(anyLong(), any())).thenReturn(1);
+        when(loanRepository.findById(anyLong())).thenReturn(Optional.of(loan));
+        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> {
+            Loan saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
+        // payLoan mutates the installments it pays and the loan counters, so every call gets a fresh unpaid schedule
+        when(installmentRepository.findUnpaidByLoanIdOrderByDueDate(anyLong())).thenAnswer(invocation -> schedule(loan));
+
+        loanService = new LoanService(loanRepository, customerRepository, installmentRepository,
+                new ScheduleTemplateCache(), portfolioReadModel, event -> { });
+        createLoanRequest = new CreateLoanRequest(1L, new BigDecimal("10000.00"), 0.1, String.valueOf(numberOfInstallments));
+        // enough to pay every installment inside the 3 month window
+        paymentAmount = new BigDecimal("11000.00");
+    }
+
+    private List<LoanInstallment> schedule(Loan loan) {
+        loan.setPaidInstallmentCount(0);
+        loan.setRemainingAmount(loan.getLoanAmount());
+        List<LoanInstallment> installments = new ArrayList<>(numberOfInstallments);
+        BigDecimal installmentAmount = new BigDecimal("916.67");
+        LocalDate currentDate = LocalDate.now();
+        for (int i = 1; i <= numberOfInstallments; i++) {
+            installments.add(new LoanInstallment(loan, installmentAmount, currentDate.plusMonths(i).withDayOfMonth(1)));
+        }
+        return installments;
+    }
+
+    @Benchmark
+    public LoanResponse createLoan() {
+        return loanService.createLoan(createLoanRequest);
+    }
+
+    @Benchmark
+    public PaymentResult payLoan() {
+        return loanService.payLoan(1L, paymentAmount);
+    }
+
+    @Benchmark
+    public CursorPage<LoanResponse> listLoans() {
+        return loanService.listLoans(1L, null, null, null, LIST_PAGE_SIZE);
+    }
+}
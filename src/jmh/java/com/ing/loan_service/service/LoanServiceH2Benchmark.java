@@ -0,0 +1,101 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.LoanServiceApplication;
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.dto.CursorPage;
+import com.ing.loan_service.dto.LoanResponse;
+import com.ing.loan_service.dto.PaymentResult;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.repository.CustomerRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoanService hot paths through the real Spring context on a seeded in-memory H2 database,
+ * i.e. service cost plus Hibernate, JDBC and transaction overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoanServiceH2Benchmark {
+
+    // installments due within the 3 month payment window of a freshly created loan
+    private static final int PAYABLE_INSTALLMENTS = 3;
+    // the default page size, large enough that every seeded loan fits on the first page
+    private static final int LIST_PAGE_SIZE = 100;
+
+    @Param({"12", "24"})
+    private int numberOfInstallments;
+
+    @Param({"1", "100"})
+    private int loansPerCustomer;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private CreateLoanRequest createLoanRequest;
+    private Long listCustomerId;
+    private Long payLoanId;
+    private BigDecimal installmentAmount;
+    private int paymentsLeft;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LoanServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+        loanService = context.getBean(LoanService.class);
+        CustomerRepository customerRepository = context.getBean(CustomerRepository.class);
+
+        Customer createCustomer = customerRepository.save(new Customer("Create", "Customer", new BigDecimal("9999999999999.00")));
+        Customer listCustomer = customerRepository.save(new Customer("List", "Customer", new BigDecimal("9999999999999.00")));
+        listCustomerId = listCustomer.getId();
+
+        createLoanRequest = new CreateLoanRequest(createCustomer.getId(), new BigDecimal("10000.00"), 0.1,
+                String.valueOf(numberOfInstallments));
+        CreateLoanRequest listLoanRequest = new CreateLoanRequest(listCustomerId, new BigDecimal("10000.00"), 0.1,
+                String.valueOf(numberOfInstallments));
+        for (int i = 0; i < loansPerCustomer; i++) {
+            loanService.createLoan(listLoanRequest);
+        }
+        installmentAmount = new BigDecimal("11000.00")
+                .divide(BigDecimal.valueOf(numberOfInstallments), 2, RoundingMode.HALF_UP);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextPayableLoan() {
+        // each payLoan call settles one installment; swap in a fresh loan once the payable window is used up
+        if (paymentsLeft == 0) {
+            payLoanId = loanService.createLoan(createLoanRequest).getLoadId();
+            paymentsLeft = PAYABLE_INSTALLMENTS;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public LoanResponse createLoan() {
+        return loanService.createLoan(createLoanRequest);
+    }
+
+    @Benchmark
+    public PaymentResult payLoan() {
+        paymentsLeft--;
+        return loanService.payLoan(payLoanId, installmentAmount);
+    }
+
+    @Benchmark
+    public CursorPage<LoanResponse> listLoans() {
+        return loanService.listLoans(listCustomerId, null, null, null, LIST_PAGE_SIZE);
+    }
+}
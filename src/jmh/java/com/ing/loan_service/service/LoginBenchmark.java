@@ -0,0 +1,77 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.LoanServiceApplication;
+import com.ing.loan_service.controller.AuthController;
+import com.ing.loan_service.dto.JwtRequest;
+import com.ing.loan_service.dto.JwtResponse;
+import com.ing.loan_service.dto.RefreshTokenRequest;
+import com.ing.loan_service.model.User;
+import com.ing.loan_service.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuance per second on a single thread, i.e. per core as both paths are CPU bound: a password login at
+ * several bcrypt strengths against a refresh token redemption, which skips bcrypt. Calls AuthController on H2 with
+ * the user row in the second-level cache, so the difference is the password hash rather than the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+public class LoginBenchmark {
+
+    private static final String USERNAME = "benchmark-user";
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"4", "10", "12"})
+    private int bcryptStrength;
+
+    private ConfigurableApplicationContext context;
+    private AuthController authController;
+    private JwtRequest loginRequest;
+    private RefreshTokenRequest refreshRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(LoanServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:login-benchmark;DB_CLOSE_DELAY=-1",
+                        "--password-hash.bcrypt-strength=" + bcryptStrength,
+                        "--logging.level.root=WARN");
+        authController = context.getBean(AuthController.class);
+        context.getBean(UserRepository.class).save(new User(USERNAME,
+                context.getBean(PasswordEncoder.class).encode(PASSWORD), User.Role.ADMIN));
+
+        loginRequest = new JwtRequest();
+        loginRequest.setUsername(USERNAME);
+        loginRequest.setPassword(PASSWORD);
+        refreshRequest = new RefreshTokenRequest();
+        refreshRequest.setRefreshToken(((JwtResponse) authController.createAuthenticationToken(loginRequest).getBody())
+                .getRefreshToken());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> login() throws Exception {
+        return authController.createAuthenticationToken(loginRequest);
+    }
+
+    // every redemption spends the token, the next call uses its replacement
+    @Benchmark
+    public ResponseEntity<JwtResponse> refresh() {
+        ResponseEntity<JwtResponse> response = authController.refreshAuthenticationToken(refreshRequest);
+        refreshRequest.setRefreshToken(response.getBody().getRefreshToken());
+        return response;
+    }
+}
@@ -0,0 +1,173 @@
+package com.ing.loan_service.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ing.loan_service.LoanServiceApplication;
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.model.User;
+import com.ing.loan_service.repository.CustomerRepository;
+import com.ing.loan_service.repository.UserRepository;
+import com.ing.loan_service.service.LoanService;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end load test of the HTTP API. Starts the application on an embedded port with its own in-memory
+ * database, seeds customers with logins and loans, then runs closed-loop virtual clients over a weighted mix of
+ * login, create, list and pay calls and reports throughput and HDR latency percentiles per operation.
+ * <p>
+ * Client {@code i} acts as customer {@code i % customers} and draws its operations from a random generator seeded
+ * with {@code seed + i}, so two runs with the same options issue the same request sequence per client. Percentile
+ * distributions are also written as {@code .hgrm} files for plotting or comparing runs.
+ * <p>
+ * Clients wait for each response before the next request, so latencies under overload are understated
+ * (coordinated omission); compare runs at the same client count.
+ */
+public class LoadTest {
+
+    private static final String PASSWORD = "load-test";
+    private static final BigDecimal CREDIT_LIMIT = new BigDecimal("9999999999999.00");
+    private static final int SEEDED_INSTALLMENTS = 12;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        // command line arguments, so they win over application.yml
+        List<String> applicationArgs = new ArrayList<>(List.of(
+                "--server.port=" + options.port(),
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--logging.level.root=WARN"));
+        applicationArgs.addAll(List.of(options.applicationArgs()));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LoanServiceApplication.class)
+                .run(applicationArgs.toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<SeededCustomer> customers = seed(context, options);
+            run(options, "http://localhost:" + port, customers);
+        }
+    }
+
+    private static List<SeededCustomer> seed(ConfigurableApplicationContext context, LoadTestOptions options) {
+        CustomerRepository customerRepository = context.getBean(CustomerRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        LoanService loanService = context.getBean(LoanService.class);
+        // bcrypt is deliberately slow, every user shares one hash
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        List<SeededCustomer> seeded = new ArrayList<>(options.customers());
+        for (int i = 0; i < options.customers(); i++) {
+            Customer customer = customerRepository.save(new Customer("Load", "Customer " + i, CREDIT_LIMIT));
+            String username = "load-customer-" + i;
+            userRepository.save(new User(username, passwordHash, User.Role.CUSTOMER, customer));
+            List<Long> loanIds = new ArrayList<>(options.loansPerCustomer());
+            for (int loan = 0; loan < options.loansPerCustomer(); loan++) {
+                loanIds.add(loanService.createLoan(new CreateLoanRequest(customer.getId(), new BigDecimal("1200.00"),
+                        0.1, String.valueOf(SEEDED_INSTALLMENTS))).getLoadId());
+            }
+            seeded.add(new SeededCustomer(customer.getId(), username, loanIds));
+        }
+        System.out.printf("Seeded %d customers with %d loans each%n", options.customers(), options.loansPerCustomer());
+        return seeded;
+    }
+
+    private static void run(LoadTestOptions options, String baseUrl, List<SeededCustomer> customers)
+            throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ObjectMapper json = new ObjectMapper();
+        long warmupEnd = System.nanoTime() + options.warmup().toNanos();
+        long end = warmupEnd + options.duration().toNanos();
+
+        List<LoadTestClient> clients = new ArrayList<>(options.clients());
+        for (int i = 0; i < options.clients(); i++) {
+            SeededCustomer customer = customers.get(i % customers.size());
+            // seeded loans go to the customer's first client only, so no two clients pay the same loan
+            List<Long> loanIds = i < customers.size() ? customer.loanIds() : List.of();
+            clients.add(new LoadTestClient(baseUrl, http, json, customer.customerId(), customer.username(), PASSWORD,
+                    loanIds, SEEDED_INSTALLMENTS, options.mix(), options.seed() + i, warmupEnd, end));
+        }
+
+        System.out.printf("Running %d clients against %s: %ds warmup, %ds measured, mix %s%n", options.clients(),
+                baseUrl, options.warmup().toSeconds(), options.duration().toSeconds(), options.mix());
+        ExecutorService executor = Executors.newFixedThreadPool(options.clients());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            clients.forEach(client -> futures.add(executor.submit(client)));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        report(options, clients);
+    }
+
+    private static void report(LoadTestOptions options, List<LoadTestClient> clients) throws IOException {
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        Histogram all = new Histogram(3);
+        for (LoadTestClient client : clients) {
+            client.latencies().forEach((operation, histogram) -> {
+                latencies.computeIfAbsent(operation, o -> new Histogram(3)).add(histogram);
+                all.add(histogram);
+            });
+            client.errors().forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+        }
+
+        double seconds = options.duration().toMillis() / 1000.0;
+        PrintStream out = System.out;
+        out.printf("%n%-8s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+                "op", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long totalErrors = 0;
+        for (Operation operation : options.mix().keySet()) {
+            long operationErrors = errors.getOrDefault(operation, 0L);
+            totalErrors += operationErrors;
+            print(out, operation.name().toLowerCase(Locale.ROOT), latencies.get(operation), operationErrors, seconds);
+        }
+        print(out, "all", all, totalErrors, seconds);
+
+        Files.createDirectories(options.reportDir());
+        for (Operation operation : options.mix().keySet()) {
+            try (PrintStream file = new PrintStream(Files.newOutputStream(
+                    options.reportDir().resolve(operation.name().toLowerCase(Locale.ROOT) + ".hgrm")))) {
+                // values are recorded in microseconds and written in milliseconds
+                latencies.get(operation).outputPercentileDistribution(file, 1000.0);
+            }
+        }
+        out.printf("%nPercentile distributions written to %s%n", options.reportDir().toAbsolutePath());
+    }
+
+    private static void print(PrintStream out, String name, Histogram histogram, long errors, double seconds) {
+        out.printf(Locale.ROOT, "%-8s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                name, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private record SeededCustomer(long customerId, String username, List<Long> loanIds) {
+    }
+}
@@ -0,0 +1,215 @@
+package com.ing.loan_service.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * One closed-loop virtual client: logs in as its customer, then issues operations drawn from the mix back to back
+ * until the run ends. Latencies are recorded in microseconds once the warmup is over; the histograms are only read
+ * after the client's thread has finished.
+ */
+final class LoadTestClient implements Runnable {
+
+    // installments due within the 3 month payment window of a freshly created loan
+    private static final int PAYABLE_INSTALLMENTS = 3;
+    private static final int[] INSTALLMENT_COUNTS = {6, 9, 12, 24};
+    private static final BigDecimal LOAN_AMOUNT = new BigDecimal("1200.00");
+    private static final double INTEREST_RATE = 0.1;
+    private static final long HIGHEST_LATENCY_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+
+    private final String baseUrl;
+    private final HttpClient http;
+    private final ObjectMapper json;
+    private final long customerId;
+    private final String username;
+    private final String password;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final SplittableRandom random;
+    private final long warmupEnd;
+    private final long end;
+    private final List<OpenLoan> openLoans = new ArrayList<>();
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+    private String token;
+
+    LoadTestClient(String baseUrl, HttpClient http, ObjectMapper json, long customerId, String username,
+                   String password, List<Long> seededLoanIds, int seededInstallments, Map<Operation, Integer> mix,
+                   long seed, long warmupEnd, long end) {
+        this.baseUrl = baseUrl;
+        this.http = http;
+        this.json = json;
+        this.customerId = customerId;
+        this.username = username;
+        this.password = password;
+        this.operations = mix.keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        this.random = new SplittableRandom(seed);
+        this.warmupEnd = warmupEnd;
+        this.end = end;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Histogram(HIGHEST_LATENCY_MICROS, 3));
+            errors.put(operation, 0L);
+        }
+        seededLoanIds.forEach(loanId -> openLoans.add(new OpenLoan(loanId, installmentAmount(seededInstallments))));
+    }
+
+    @Override
+    public void run() {
+        try {
+            login();
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Client " + username + " could not log in", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+            Operation operation = next();
+            // a client without a payable loan takes out a new one instead, it is recorded as a create
+            if (operation == Operation.PAY && openLoans.isEmpty()) {
+                operation = Operation.CREATE;
+            }
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                ok = execute(operation);
+            } catch (IOException | RuntimeException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long finish = System.nanoTime();
+            if (start >= warmupEnd && finish <= end) {
+                if (ok) {
+                    latencies.get(operation).recordValue(Math.min((finish - start) / 1000, HIGHEST_LATENCY_MICROS));
+                } else {
+                    errors.merge(operation, 1L, Long::sum);
+                }
+            }
+        }
+    }
+
+    Map<Operation, Histogram> latencies() {
+        return latencies;
+    }
+
+    Map<Operation, Long> errors() {
+        return errors;
+    }
+
+    private Operation next() {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < operations.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    private boolean execute(Operation operation) throws IOException, InterruptedException {
+        return switch (operation) {
+            case LOGIN -> login();
+            case CREATE -> create();
+            case LIST -> list();
+            case PAY -> pay();
+        };
+    }
+
+    private boolean login() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(post("/api/auth/login",
+                json.createObjectNode().put("username", username).put("password", password)));
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        token = json.readTree(response.body()).get("jwttoken").asText();
+        return true;
+    }
+
+    private boolean create() throws IOException, InterruptedException {
+        int installments = INSTALLMENT_COUNTS[random.nextInt(INSTALLMENT_COUNTS.length)];
+        HttpResponse<String> response = send(authorized(post("/api/loans", json.createObjectNode()
+                .put("customerId", customerId)
+                .put("amount", LOAN_AMOUNT)
+                .put("interestRate", INTEREST_RATE)
+                .put("numberOfInstallments", String.valueOf(installments)))));
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        openLoans.add(new OpenLoan(json.readTree(response.body()).get("loadId").asLong(), installmentAmount(installments)));
+        return true;
+    }
+
+    private boolean list() throws IOException, InterruptedException {
+        return send(authorized(HttpRequest.newBuilder(uri("/api/loans?customerId=" + customerId)).GET()))
+                .statusCode() == 200;
+    }
+
+    private boolean pay() throws IOException, InterruptedException {
+        OpenLoan loan = openLoans.get(random.nextInt(openLoans.size()));
+        // one installment's amount always covers the oldest payable one, it is never due yet so it is discounted
+        HttpResponse<String> response = send(authorized(post("/api/loans/" + loan.loanId + "/pay",
+                json.createObjectNode().put("amount", loan.installmentAmount))));
+        if (++loan.payments == PAYABLE_INSTALLMENTS) {
+            openLoans.remove(loan);
+        }
+        return response.statusCode() == 200;
+    }
+
+    private HttpRequest.Builder post(String path, JsonNode body) throws IOException {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json.writeValueAsString(body)));
+    }
+
+    private HttpRequest.Builder authorized(HttpRequest.Builder request) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return http.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static BigDecimal installmentAmount(int installments) {
+        return LOAN_AMOUNT.multiply(BigDecimal.valueOf(1 + INTEREST_RATE))
+                .divide(BigDecimal.valueOf(installments), 2, RoundingMode.UP);
+    }
+
+    private static final class OpenLoan {
+
+        private final long loanId;
+        private final BigDecimal installmentAmount;
+        private int payments;
+
+        private OpenLoan(long loanId, BigDecimal installmentAmount) {
+            this.loanId = loanId;
+            this.installmentAmount = installmentAmount;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ing.loan_service.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line of the load test. Known {@code --name=value} options configure the run; every other argument is
+ * handed to the application, e.g. {@code --jwt.user-cache.enabled=true}.
+ */
+record LoadTestOptions(int customers, int loansPerCustomer, int clients, Duration warmup, Duration duration,
+                       Map<Operation, Integer> mix, long seed, int port, Path reportDir, String[] applicationArgs) {
+
+    static LoadTestOptions parse(String[] args) {
+        int customers = 50;
+        int loansPerCustomer = 2;
+        int clients = 32;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(30);
+        String mix = "login=5,create=10,list=60,pay=25";
+        long seed = 42;
+        int port = 0;
+        Path reportDir = Path.of("target", "loadtest");
+        List<String> applicationArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = separator < 0 ? arg : arg.substring(0, separator);
+            String value = separator < 0 ? "" : arg.substring(separator + 1);
+            switch (name) {
+                case "--customers" -> customers = Integer.parseInt(value);
+                case "--loans-per-customer" -> loansPerCustomer = Integer.parseInt(value);
+                case "--clients" -> clients = Integer.parseInt(value);
+                case "--warmup" -> warmup = Duration.ofSeconds(Long.parseLong(value));
+                case "--duration" -> duration = Duration.ofSeconds(Long.parseLong(value));
+                case "--mix" -> mix = value;
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--port" -> port = Integer.parseInt(value);
+                case "--report-dir" -> reportDir = Path.of(value);
+                default -> applicationArgs.add(arg);
+            }
+        }
+        if (customers < 1 || clients < 1) {
+            throw new IllegalArgumentException("--customers and --clients must be at least 1");
+        }
+        return new LoadTestOptions(customers, loansPerCustomer, clients, warmup, duration, parseMix(mix), seed, port,
+                reportDir, applicationArgs.toArray(String[]::new));
+    }
+
+    // "login=5,create=10,list=60,pay=25": relative weights, operations left out are not run
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix must give at least one operation a positive weight");
+        }
+        return weights;
+    }
+}
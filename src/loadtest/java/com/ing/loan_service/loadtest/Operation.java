@@ -0,0 +1,8 @@
+package com.ing.loan_service.loadtest;
+
+/**
+ * API calls a virtual client can make.
+ */
+enum Operation {
+    LOGIN, CREATE, LIST, PAY
+}
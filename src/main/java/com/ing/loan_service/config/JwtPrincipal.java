@@ -0,0 +1,21 @@
+package com.ing.loan_service.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.Collections;
+
+// Authenticated caller rebuilt from the JWT claims alone, without a users table lookup
+public record JwtPrincipal(String username, String role, Long customerId) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority(role));
+    }
+}
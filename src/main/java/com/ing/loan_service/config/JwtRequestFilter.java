@@ -1,10 +1,18 @@
 package com.ing.loan_service.config;
 
-import com.ing.loan_service.service.UserDetailsServiceImpl;
+import com.ing.loan_service.service.UserDetailsCache;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,38 +26,54 @@ import java.io.IOException;
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
-    private final UserDetailsServiceImpl userDetailsService;
+    private static final Logger log = LoggerFactory.getLogger(JwtRequestFilter.class);
+
+    private final UserDetailsCache userDetailsCache;
     private final JwtTokenUtil jwtTokenUtil;
+    private final MeterRegistry meterRegistry;
+    private final boolean confirmUser;
 
-    public JwtRequestFilter(UserDetailsServiceImpl userDetailsService, JwtTokenUtil jwtTokenUtil) {
-        this.userDetailsService = userDetailsService;
+    public JwtRequestFilter(UserDetailsCache userDetailsCache, JwtTokenUtil jwtTokenUtil, MeterRegistry meterRegistry,
+                            @Value("${jwt.user-cache.enabled}") boolean confirmUser) {
+        this.userDetailsCache = userDetailsCache;
         this.jwtTokenUtil = jwtTokenUtil;
+        this.meterRegistry = meterRegistry;
+        this.confirmUser = confirmUser;
     }
 
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
+        Claims claims = null;
 
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "valid";
             try {
-                username = jwtTokenUtil.getUsernameFromToken(jwtToken);
+                // signature is verified once here and the claims are reused for the rest of the request
+                claims = jwtTokenUtil.verifyToken(jwtToken);
             } catch (IllegalArgumentException e) {
-                System.out.println("Unable to get JWT Token");
+                outcome = "malformed";
+                log.debug("Unable to get JWT Token");
             } catch (ExpiredJwtException e) {
-                System.out.println("JWT Token has expired");
+                outcome = "expired";
+                log.debug("JWT Token has expired");
+            } catch (JwtException e) {
+                outcome = "invalid";
+                log.debug("Invalid JWT Token: {}", e.getMessage());
+            } finally {
+                sample.stop(meterRegistry.timer("jwt.verify", "outcome", outcome));
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (claims != null && claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtPrincipal principal = jwtTokenUtil.getPrincipal(claims);
 
-            if (jwtTokenUtil.validateToken(jwtToken, userDetails)) {
+            if (principal.role() != null && (!confirmUser || isConfirmed(claims, principal))) {
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                 usernamePasswordAuthenticationToken
                         .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
@@ -57,4 +81,14 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         chain.doFilter(request, response);
     }
+
+    private boolean isConfirmed(Claims claims, JwtPrincipal principal) {
+        try {
+            UserDetails userDetails = userDetailsCache.loadUserByUsername(principal.getName());
+            return jwtTokenUtil.validateToken(claims, userDetails)
+                    && userDetails.getAuthorities().containsAll(principal.getAuthorities());
+        } catch (UsernameNotFoundException e) {
+            return false;
+        }
+    }
 }
@@ -1,50 +1,106 @@
 package com.ing.loan_service.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ing.loan_service.service.LoanUserDetails;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MissingClaimException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenUtil implements Serializable {
 
     public static final long JWT_TOKEN_VALIDITY = 5 * 60 * 60; // 5 hours
+    public static final String ROLE_CLAIM = "role";
+    public static final String CUSTOMER_ID_CLAIM = "customerId";
 
     @Value("${jwt.secret}")
     private String secret;
 
-    public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
-    }
+    // SHA-256 digest of an already verified token -> its claims, each entry expires with the token itself
+    private final transient Cache<String, Claims> verifiedTokens;
+
+    public JwtTokenUtil(@Value("${jwt.token-cache.maximum-size}") long tokenCacheSize) {
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(tokenCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
 
-    public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
-    public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getAllClaimsFromToken(token);
-        return claimsResolver.apply(claims);
+    // Verifies the signature and expiry once; repeated tokens are answered from the cache without HS512 verification.
+    // A token without exp is rejected, it would never expire and has no lifetime to cache it for.
+    public Claims verifyToken(String token) {
+        String digest = digest(token);
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims == null) {
+            Jws<Claims> jws = Jwts.parser().setSigningKey(secret).parseClaimsJws(token);
+            claims = jws.getBody();
+            if (claims.getExpiration() == null) {
+                throw new MissingClaimException(jws.getHeader(), claims, "JWT has no expiration claim");
+            }
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
     }
 
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+    public JwtPrincipal getPrincipal(Claims claims) {
+        return new JwtPrincipal(claims.getSubject(),
+                claims.get(ROLE_CLAIM, String.class), claims.get(CUSTOMER_ID_CLAIM, Long.class));
     }
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
+    private Boolean isTokenExpired(Claims claims) {
+        final Date expiration = claims.getExpiration();
         return expiration.before(new Date());
     }
 
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        userDetails.getAuthorities().stream().findFirst()
+                .ifPresent(authority -> claims.put(ROLE_CLAIM, authority.getAuthority()));
+        if (userDetails instanceof LoanUserDetails loanUserDetails && loanUserDetails.getCustomerId() != null) {
+            claims.put(CUSTOMER_ID_CLAIM, loanUserDetails.getCustomerId());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -58,8 +114,8 @@ public class JwtTokenUtil implements Serializable {
                 .compact();
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return (username.equals(userDetails.getUsername()) && !isTokenExpired(claims));
     }
 }
@@ -0,0 +1,27 @@
+package com.ing.loan_service.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // backs @Timed on service classes
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // an inspector configured through spring.jpa.properties (e.g. by a test) takes precedence
+    @Bean
+    public HibernatePropertiesCustomizer requestQueryCounterCustomizer(RequestQueryCounter queryCounter) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+            properties.putIfAbsent(AvailableSettings.INTERCEPTOR, queryCounter);
+        };
+    }
+}
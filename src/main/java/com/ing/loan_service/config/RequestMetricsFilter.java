@@ -0,0 +1,52 @@
+package com.ing.loan_service.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Query fan-out per endpoint: statements prepared and entities loaded by each request, tagged like
+// http.server.requests. Runs first so the JWT user lookup is included.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final RequestQueryCounter queryCounter;
+    private final MeterRegistry meterRegistry;
+
+    public RequestMetricsFilter(RequestQueryCounter queryCounter, MeterRegistry meterRegistry) {
+        this.queryCounter = queryCounter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        queryCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestQueryCounter.Counts counts = queryCounter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            summary("http.server.requests.statements", request, uri).record(counts.statements());
+            summary("http.server.requests.entity.loads", request, uri).record(counts.entityLoads());
+        }
+    }
+
+    private DistributionSummary summary(String name, HttpServletRequest request, String uri) {
+        return DistributionSummary.builder(name)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+}
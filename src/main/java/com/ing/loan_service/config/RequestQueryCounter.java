@@ -0,0 +1,59 @@
+package com.ing.loan_service.config;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+// Counts the SQL statements Hibernate prepares and the entities it loads on the current thread while a request
+// is being measured (see RequestMetricsFilter). Registered as the session factory's statement inspector and
+// interceptor; work outside a measured request, e.g. scheduled jobs, is not counted.
+@Component
+public class RequestQueryCounter extends EmptyInterceptor implements StatementInspector {
+
+    private final transient ThreadLocal<Counts> current = new ThreadLocal<>();
+
+    public void start() {
+        current.set(new Counts());
+    }
+
+    public Counts stop() {
+        Counts counts = current.get();
+        current.remove();
+        return counts;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.entityLoads++;
+        }
+        return false;
+    }
+
+    public static final class Counts {
+
+        private int statements;
+        private int entityLoads;
+
+        public int statements() {
+            return statements;
+        }
+
+        public int entityLoads() {
+            return entityLoads;
+        }
+    }
+}
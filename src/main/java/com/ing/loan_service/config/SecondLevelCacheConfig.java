@@ -0,0 +1,59 @@
+package com.ing.loan_service.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.ing.loan_service.model.CacheRegions;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+// Hibernate second-level cache on an in-process Caffeine JCache manager. Every region is created here and
+// Hibernate fails fast on a region nobody declared, so no cache can end up unbounded.
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${second-level-cache.maximum-size}") long maximumSize,
+                                                @Value("${second-level-cache.expire-after-write}") Duration expireAfterWrite) {
+        // one manager per application context, contexts with their own databases must not share entries
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("loan-service:" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : List.of(CacheRegions.CUSTOMERS, CacheRegions.USERS, CacheRegions.USERS_BY_USERNAME,
+                RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME)) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+        }
+        // a table's last update time must outlive every query result cached against it, so it is never evicted
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, timestamps);
+        return cacheManager;
+    }
+
+    // hit/miss/put counts per region come from generate_statistics, published as hibernate.second.level.cache.*
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.ing.loan_service.controller;
+
+import com.ing.loan_service.dto.AccrualSummary;
+import com.ing.loan_service.service.AccrualService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/accruals")
+@CrossOrigin
+@PreAuthorize("hasRole('ADMIN')")
+public class AccrualController {
+
+    private final AccrualService accrualService;
+
+    public AccrualController(AccrualService accrualService) {
+        this.accrualService = accrualService;
+    }
+
+    // Starts (or resumes) the accrual for the date, today by default, in the background: 202 with the run, whose
+    // progress is polled at the Location. A run completed earlier comes back as is with 200, one in progress is 409.
+    @PostMapping
+    public ResponseEntity<AccrualSummary> runAccrual(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOfDate) {
+        AccrualSummary run = accrualService.start(asOfDate != null ? asOfDate : LocalDate.now());
+        if (run.isCompleted()) {
+            return ResponseEntity.ok(run);
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .replaceQuery(null)
+                .path("/{asOfDate}")
+                .buildAndExpand(run.getAsOfDate())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(run);
+    }
+
+    @GetMapping("/{asOfDate}")
+    public ResponseEntity<AccrualSummary> getAccrual(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOfDate) {
+        return accrualService.findRun(asOfDate)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
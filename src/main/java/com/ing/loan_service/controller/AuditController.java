@@ -0,0 +1,49 @@
+package com.ing.loan_service.controller;
+
+import com.ing.loan_service.service.AuditEventType;
+import com.ing.loan_service.service.AuditJournal;
+import com.ing.loan_service.service.AuditRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/audit")
+@CrossOrigin(exposedHeaders = LoanController.NEXT_CURSOR_HEADER)
+@PreAuthorize("hasRole('ADMIN')")
+public class AuditController {
+
+    private final AuditJournal auditJournal;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public AuditController(AuditJournal auditJournal,
+                           @Value("${pagination.default-page-size}") int defaultPageSize,
+                           @Value("${pagination.max-page-size}") int maxPageSize) {
+        this.auditJournal = auditJournal;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    // Journal records in sequence order; a full page returns the last sequence in X-Next-Cursor for ?after=
+    @GetMapping
+    public ResponseEntity<List<AuditRecord>> queryAudit(
+            @RequestParam(required = false) Long loanId,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) String actor,
+            @RequestParam(required = false) AuditEventType type,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(required = false) Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        List<AuditRecord> records = auditJournal.query(loanId, customerId, actor, type, after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (records.size() == pageSize) {
+            response.header(LoanController.NEXT_CURSOR_HEADER,
+                    String.valueOf(records.get(records.size() - 1).sequence()));
+        }
+        return response.body(records);
+    }
+}
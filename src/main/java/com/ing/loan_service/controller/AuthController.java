@@ -3,6 +3,8 @@ package com.ing.loan_service.controller;
 import com.ing.loan_service.config.JwtTokenUtil;
 import com.ing.loan_service.dto.JwtRequest;
 import com.ing.loan_service.dto.JwtResponse;
+import com.ing.loan_service.dto.RefreshTokenRequest;
+import com.ing.loan_service.service.RefreshTokenService;
 import com.ing.loan_service.service.UserDetailsServiceImpl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -20,27 +22,39 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final JwtTokenUtil jwtTokenUtil;
     private final UserDetailsServiceImpl userDetailsService;
+    private final RefreshTokenService refreshTokenService;
 
-    public AuthController(AuthenticationManager authenticationManager, JwtTokenUtil jwtTokenUtil, UserDetailsServiceImpl userDetailsService) {
+    public AuthController(AuthenticationManager authenticationManager, JwtTokenUtil jwtTokenUtil,
+                          UserDetailsServiceImpl userDetailsService, RefreshTokenService refreshTokenService) {
         this.authenticationManager = authenticationManager;
         this.jwtTokenUtil = jwtTokenUtil;
         this.userDetailsService = userDetailsService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @PostMapping("/login")
     public ResponseEntity<?> createAuthenticationToken(@RequestBody JwtRequest authenticationRequest) throws Exception {
 
-        authenticate(authenticationRequest.getUsername(), authenticationRequest.getPassword());
-
-        final UserDetails userDetails = userDetailsService.loadUserByUsername(authenticationRequest.getUsername());
+        final UserDetails userDetails = authenticate(authenticationRequest.getUsername(), authenticationRequest.getPassword());
         final String token = jwtTokenUtil.generateToken(userDetails);
 
-        return ResponseEntity.ok(new JwtResponse(token));
+        return ResponseEntity.ok(new JwtResponse(token, refreshTokenService.issue(userDetails.getUsername())));
+    }
+
+    // No password check: the refresh token is consumed and replaced, the user row is read again so role and
+    // customer changes since the login make it into the new access token (a deleted user gets 401)
+    @PostMapping("/refresh")
+    public ResponseEntity<JwtResponse> refreshAuthenticationToken(@RequestBody RefreshTokenRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        final UserDetails userDetails = userDetailsService.loadUserByUsername(rotation.username());
+        return ResponseEntity.ok(new JwtResponse(jwtTokenUtil.generateToken(userDetails), rotation.refreshToken()));
     }
 
-    private void authenticate(String username, String password) throws Exception {
+    // the authenticated principal is the user the password was checked against, so it is not looked up again
+    private UserDetails authenticate(String username, String password) throws Exception {
         try {
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+            return (UserDetails) authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(username, password)).getPrincipal();
         } catch (DisabledException e) {
             throw new Exception("USER_DISABLED", e);
         } catch (BadCredentialsException e) {
@@ -1,35 +1,74 @@
 package com.ing.loan_service.controller;
 
 import com.ing.loan_service.dto.*;
-import com.ing.loan_service.model.User;
-import com.ing.loan_service.repository.UserRepository;
+import com.ing.loan_service.service.BatchPaymentService;
+import com.ing.loan_service.service.IdempotencyService;
+import com.ing.loan_service.service.IdempotentResponse;
+import com.ing.loan_service.service.LoanExportService;
 import com.ing.loan_service.service.LoanService;
+import com.ing.loan_service.service.OwnershipService;
+import com.ing.loan_service.service.PaymentMetrics;
+import com.ing.loan_service.service.PaymentQuoteService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/loans")
-@CrossOrigin
+@CrossOrigin(exposedHeaders = {LoanController.NEXT_CURSOR_HEADER, LoanController.IDEMPOTENT_REPLAYED_HEADER,
+        HttpHeaders.ETAG})
 public class LoanController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final LoanService loanService;
-    private final UserRepository userRepository;
+    private final BatchPaymentService batchPaymentService;
+    private final LoanExportService loanExportService;
+    private final OwnershipService ownershipService;
+    private final PaymentQuoteService paymentQuoteService;
+    private final PaymentMetrics paymentMetrics;
+    private final IdempotencyService idempotencyService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public LoanController(LoanService loanService, UserRepository userRepository) {
+    public LoanController(LoanService loanService, BatchPaymentService batchPaymentService,
+                          LoanExportService loanExportService, OwnershipService ownershipService,
+                          PaymentQuoteService paymentQuoteService, PaymentMetrics paymentMetrics,
+                          IdempotencyService idempotencyService,
+                          @Value("${pagination.default-page-size}") int defaultPageSize,
+                          @Value("${pagination.max-page-size}") int maxPageSize) {
         this.loanService = loanService;
-        this.userRepository = userRepository;
+        this.batchPaymentService = batchPaymentService;
+        this.loanExportService = loanExportService;
+        this.ownershipService = ownershipService;
+        this.paymentQuoteService = paymentQuoteService;
+        this.paymentMetrics = paymentMetrics;
+        this.idempotencyService = idempotencyService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and @loanController.isOwner(authentication, #request.customerId))")
-    public ResponseEntity<LoanResponse> createLoan(@Valid @RequestBody CreateLoanRequest request) {
-        LoanResponse loan = loanService.createLoan(request);
-        return ResponseEntity.ok(loan);
+    public ResponseEntity<LoanResponse> createLoan(@Valid @RequestBody CreateLoanRequest request,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                   String idempotencyKey,
+                                                   Authentication authentication) {
+        IdempotentResponse<LoanResponse> loan = idempotencyService.execute(authentication.getName(), idempotencyKey,
+                request, LoanResponse.class, () -> loanService.createLoan(request));
+        return idempotent(loan);
     }
 
     @GetMapping
@@ -37,28 +76,119 @@ public class LoanController {
     public ResponseEntity<List<LoanResponse>> listLoans(
             @RequestParam Long customerId,
             @RequestParam(required = false) Boolean isPaid,
-            @RequestParam(required = false) Integer numberOfInstallments) {
+            @RequestParam(required = false) Integer numberOfInstallments,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
 
-        List<LoanResponse> loans = loanService.listLoans(customerId, isPaid, numberOfInstallments);
-        return ResponseEntity.ok(loans);
+        String etag = loanService.findListingVersion(customerId)
+                .map(version -> "customer-" + customerId + "-" + version)
+                .orElse(null);
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        CursorPage<LoanResponse> loans = loanService.listLoans(customerId, isPaid, numberOfInstallments,
+                cursor, pageSize(cursor, limit));
+        return page(loans, etag);
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and @loanController.isOwner(authentication, #customerId))")
+    public ResponseEntity<StreamingResponseBody> exportLoans(@RequestParam(required = false) Long customerId) {
+        StreamingResponseBody body = out -> loanExportService.exportInstallments(customerId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     @GetMapping("/{loanId}/installments")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and @loanController.isLoanOwner(authentication, #loanId))")
-    public ResponseEntity<List<InstallmentsResponse>> listInstallments(@PathVariable Long loanId) {
-        List<InstallmentsResponse> installments = loanService.listInstallments(loanId);
-        if (installments.isEmpty()) {
+    public ResponseEntity<List<InstallmentsResponse>> listInstallments(@PathVariable Long loanId,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(required = false) Integer limit,
+                                                                       WebRequest webRequest) {
+        // the version is read before the rows, so a payment racing the listing can only make the tag older than
+        // the body and cost the client one more full response
+        String etag = loanService.findInstallmentsVersion(loanId)
+                .map(version -> "loan-" + loanId + "-" + version)
+                .orElse(null);
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        CursorPage<InstallmentsResponse> installments = loanService.listInstallments(loanId, cursor, pageSize(cursor, limit));
+        // an empty page after a cursor just means the listing is exhausted
+        if (installments.getItems().isEmpty() && cursor == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(installments);
+        return page(installments, etag);
+    }
+
+    @GetMapping("/{loanId}/quote")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and @loanController.isLoanOwner(authentication, #loanId))")
+    public ResponseEntity<PaymentQuote> quotePayment(@PathVariable Long loanId) {
+        return ResponseEntity.ok(paymentQuoteService.quote(loanId));
     }
 
     @PostMapping("/{loanId}/pay")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and @loanController.isLoanOwner(authentication, #loanId))")
     public ResponseEntity<PaymentResult> payLoan(@PathVariable Long loanId,
-                                                 @Valid @RequestBody PayLoanRequest request) {
-        PaymentResult result = loanService.payLoan(loanId, request.getAmount());
-        return ResponseEntity.ok(result);
+                                                 @Valid @RequestBody PayLoanRequest request,
+                                                 @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                 String idempotencyKey,
+                                                 Authentication authentication) {
+        IdempotentResponse<PaymentResult> result;
+        try {
+            result = idempotencyService.execute(authentication.getName(), idempotencyKey, List.of(loanId, request),
+                    PaymentResult.class, () -> {
+                        // loans already paid off are turned away before payLoan's write transaction
+                        paymentQuoteService.checkPayable(loanId);
+                        return loanService.payLoan(loanId, request.getAmount());
+                    });
+        } catch (RuntimeException e) {
+            paymentMetrics.rejected(e);
+            throw e;
+        }
+        // a replay was already counted when it was paid
+        if (!result.replayed()) {
+            paymentMetrics.paid();
+        }
+        return idempotent(result);
+    }
+
+    @PostMapping("/payments")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<BatchPaymentResult>> payLoans(@Valid @RequestBody BatchPaymentRequest request) {
+        List<BatchPaymentResult> results = batchPaymentService.payLoans(request.getPayments());
+        return ResponseEntity.ok(results);
+    }
+
+    private <T> ResponseEntity<T> idempotent(IdempotentResponse<T> response) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (response.replayed()) {
+            builder.header(IDEMPOTENT_REPLAYED_HEADER, "true");
+        }
+        return builder.body(response.body());
+    }
+
+    // A request with neither a cursor nor a limit predates paging and still gets the whole listing, up to the
+    // maximum page size; the default page size only applies to clients that are already following cursors
+    private int pageSize(String cursor, Integer limit) {
+        if (limit == null) {
+            return cursor == null ? maxPageSize : defaultPageSize;
+        }
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+
+    // A tagged page may be stored by the client but must be revalidated with If-None-Match before reuse
+    private <T> ResponseEntity<List<T>> page(CursorPage<T> page, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (etag != null) {
+            response.eTag(etag).cacheControl(CacheControl.noCache().cachePrivate());
+        }
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     public boolean isOwner(Authentication authentication, Long customerId) {
@@ -67,9 +197,7 @@ public class LoanController {
             return true;
         }
 
-        User user = userRepository.findByUsername(authentication.getName()).orElse(null);
-        return user != null && user.getCustomer() != null &&
-                user.getCustomer().getId().equals(customerId);
+        return ownershipService.isCustomer(authentication, customerId);
     }
 
     public boolean isLoanOwner(Authentication authentication, Long loanId) {
@@ -78,12 +206,6 @@ public class LoanController {
             return true;
         }
 
-        User user = userRepository.findByUsername(authentication.getName()).orElse(null);
-        if (user == null || user.getCustomer() == null) {
-            return false;
-        }
-
-        return user.getCustomer().getLoans().stream()
-                .anyMatch(loan -> loan.getId().equals(loanId));
+        return ownershipService.ownsLoan(authentication, loanId);
     }
 }
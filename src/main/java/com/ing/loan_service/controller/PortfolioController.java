@@ -0,0 +1,37 @@
+package com.ing.loan_service.controller;
+
+import com.ing.loan_service.dto.PortfolioCheckResult;
+import com.ing.loan_service.service.PortfolioReadModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+// Operational endpoints for the in-memory portfolio read model behind GET /api/loans
+@RestController
+@RequestMapping("/api/portfolio")
+@CrossOrigin
+@PreAuthorize("hasRole('ADMIN')")
+public class PortfolioController {
+
+    private final PortfolioReadModel portfolioReadModel;
+
+    public PortfolioController(PortfolioReadModel portfolioReadModel) {
+        this.portfolioReadModel = portfolioReadModel;
+    }
+
+    @GetMapping("/{customerId}/consistency")
+    public ResponseEntity<PortfolioCheckResult> checkConsistency(@PathVariable Long customerId) {
+        return ResponseEntity.ok(portfolioReadModel.check(customerId));
+    }
+
+    @PostMapping("/{customerId}/rebuild")
+    public ResponseEntity<PortfolioCheckResult> rebuild(@PathVariable Long customerId) {
+        return ResponseEntity.ok(portfolioReadModel.rebuild(customerId));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuildAll() {
+        portfolioReadModel.rebuildAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.ing.loan_service.controller;
+
+import com.ing.loan_service.service.UserDetailsServiceImpl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin
+@PreAuthorize("hasRole('ADMIN')")
+public class UserController {
+
+    private final UserDetailsServiceImpl userDetailsService;
+
+    public UserController(UserDetailsServiceImpl userDetailsService) {
+        this.userDetailsService = userDetailsService;
+    }
+
+    // Deletes the user and revokes its refresh tokens; issued access tokens are rejected from the next request on
+    // when jwt.user-cache.enabled, otherwise once they expire
+    @DeleteMapping("/{username}")
+    public ResponseEntity<Void> deleteUser(@PathVariable String username) {
+        return userDetailsService.deleteUser(username)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
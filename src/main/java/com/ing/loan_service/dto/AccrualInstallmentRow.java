@@ -0,0 +1,20 @@
+package com.ing.loan_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// The columns of an unpaid installment the accrual job needs, read without managing entities
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccrualInstallmentRow {
+
+    private Long loanId;
+    private Long customerId;
+    private BigDecimal amount;
+    private LocalDate dueDate;
+}
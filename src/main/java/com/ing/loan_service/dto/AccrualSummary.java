@@ -0,0 +1,28 @@
+package com.ing.loan_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccrualSummary {
+
+    private LocalDate asOfDate;
+    private boolean completed;
+    private int chunksProcessed;
+    private long loansProcessed;
+    private long overdueInstallments;
+    private BigDecimal scheduledAmount;
+    private BigDecimal penaltyAmount;
+    private BigDecimal discountAmount;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,39 @@
+package com.ing.loan_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchPaymentRequest {
+
+    // bounds the per-request result array and the time the admin's request holds a worker thread
+    public static final int MAX_PAYMENTS = 10_000;
+
+    @NotEmpty(message = "Payments are required")
+    @Size(max = MAX_PAYMENTS, message = "At most " + MAX_PAYMENTS + " payments per request")
+    private List<@Valid Item> payments;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+
+        @NotNull(message = "Loan ID is required")
+        private Long loanId;
+
+        @NotNull(message = "Amount is required")
+        @DecimalMin(value = "0.01", message = "Amount must be positive")
+        private BigDecimal amount;
+    }
+}
@@ -0,0 +1,32 @@
+package com.ing.loan_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchPaymentResult {
+
+    public static final String PAID = "PAID";
+    public static final String FAILED = "FAILED";
+
+    // position of the item in the request
+    private int index;
+    private Long loanId;
+    private String status;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer installmentsPaid;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal totalAmountSpent;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean loanFullyPaid;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+}
@@ -0,0 +1,17 @@
+package com.ing.loan_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+    // opaque continuation token for the next page, null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.ing.loan_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Available credit and row version read straight from the customer row, never from the persistence context
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CustomerCredit {
+
+    private Long customerId;
+    private BigDecimal availableCredit;
+    private Long version;
+}
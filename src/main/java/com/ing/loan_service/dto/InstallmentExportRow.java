@@ -0,0 +1,27 @@
+package com.ing.loan_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One NDJSON line of the loan export: an installment together with its loan
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InstallmentExportRow {
+
+    private Long customerId;
+    private Long loanId;
+    private BigDecimal loanAmount;
+    private Integer numberOfInstallment;
+    private Boolean loanPaid;
+    private Long installmentId;
+    private BigDecimal amount;
+    private BigDecimal paidAmount;
+    private LocalDate dueDate;
+    private LocalDate paymentDate;
+    private Boolean paid;
+}
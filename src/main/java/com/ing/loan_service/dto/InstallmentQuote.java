@@ -0,0 +1,24 @@
+package com.ing.loan_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class InstallmentQuote {
+
+    private Long installmentId;
+    private LocalDate dueDate;
+    private BigDecimal amount;
+    // what paying it on the quote date costs, discount or penalty included
+    private BigDecimal effectiveAmount;
+    // exact amount that pays this installment and every payable one before it
+    private BigDecimal cumulativeAmount;
+}
@@ -8,4 +8,6 @@ import java.io.Serializable;
 public class JwtResponse implements Serializable {
 
     private final String jwttoken;
+    // single use, trade it at /api/auth/refresh for a new pair once the access token expires
+    private final String refreshToken;
 }
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 @Data
 @AllArgsConstructor
@@ -25,5 +26,9 @@ public class LoanResponse {
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Long numberOfPaidInstallment;
     @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal remainingAmount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDate nextDueDate;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String status;
 }
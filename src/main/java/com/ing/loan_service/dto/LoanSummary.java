@@ -0,0 +1,28 @@
+package com.ing.loan_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Read-only projection of a loan row and its balance counters, no installments are read
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanSummary {
+
+    private Long loanId;
+    private Long customerId;
+    private BigDecimal loanAmount;
+    private Integer numberOfInstallment;
+    private LocalDateTime createDate;
+    private Boolean isPaid;
+    private Integer paidInstallmentCount;
+    private BigDecimal remainingAmount;
+    private LocalDate nextDueDate;
+    // row version, lets the portfolio read model tell a newer snapshot of the loan from an older one
+    private Long version;
+}
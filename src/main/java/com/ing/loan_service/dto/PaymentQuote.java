@@ -0,0 +1,28 @@
+package com.ing.loan_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PaymentQuote {
+
+    private Long loanId;
+    private LocalDate quoteDate;
+    private boolean loanPaid;
+    private int unpaidInstallments;
+    // installments inside the payment window, in the order a payment settles them
+    private List<InstallmentQuote> payableInstallments;
+    // every unpaid installment at its quote date price
+    private BigDecimal payoffAmount;
+    // whether the whole payoff falls inside the payment window, i.e. a single payment can close the loan today
+    private boolean payoffAvailable;
+}
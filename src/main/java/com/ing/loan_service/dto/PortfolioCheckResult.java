@@ -0,0 +1,18 @@
+package com.ing.loan_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PortfolioCheckResult {
+
+    private Long customerId;
+    private boolean cached;
+    private boolean consistent;
+    private List<String> differences;
+}
@@ -0,0 +1,9 @@
+package com.ing.loan_service.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshTokenRequest {
+
+    private String refreshToken;
+}
@@ -0,0 +1,11 @@
+package com.ing.loan_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class AccrualInProgressException extends RuntimeException {
+    public AccrualInProgressException(String message) {
+        super(message);
+    }
+}
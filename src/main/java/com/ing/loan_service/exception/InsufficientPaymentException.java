@@ -0,0 +1,7 @@
+package com.ing.loan_service.exception;
+
+public class InsufficientPaymentException extends RuntimeException {
+    public InsufficientPaymentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,62 @@
+package com.ing.loan_service.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Progress and running totals of one as-of-date accrual run. Updated in the same transaction as each chunk's
+// snapshot rows, so lastLoanId is always a consistent restart point. The row is also the run's lock: a worker
+// claims it before processing and every chunk renews the claim, so no two instances process the same date.
+@Entity
+@Table(name = "accrual_runs")
+@Data
+@NoArgsConstructor
+public class AccrualRun {
+
+    @Id
+    private LocalDate asOfDate;
+
+    // highest loan id whose accrual has been written
+    @Column(nullable = false)
+    private Long lastLoanId = 0L;
+
+    @Column(nullable = false)
+    private Integer chunksProcessed = 0;
+
+    @Column(nullable = false)
+    private Long loansProcessed = 0L;
+
+    @Column(nullable = false)
+    private Long overdueInstallments = 0L;
+
+    @Column(nullable = false, precision = 17, scale = 2)
+    private BigDecimal scheduledAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 17, scale = 2)
+    private BigDecimal penaltyAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 17, scale = 2)
+    private BigDecimal discountAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Boolean completed = false;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    // worker processing the run, null when idle; a claim older than claimedUntil was abandoned and may be taken over
+    private String claimedBy;
+
+    private LocalDateTime claimedUntil;
+
+    public AccrualRun(LocalDate asOfDate) {
+        this.asOfDate = asOfDate;
+        this.startedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,13 @@
+package com.ing.loan_service.model;
+
+// Hibernate second-level cache regions of the entities and cached queries; SecondLevelCacheConfig creates one cache
+// per name, so a region used here without being declared there fails at startup
+public final class CacheRegions {
+
+    public static final String CUSTOMERS = "customers";
+    public static final String USERS = "users";
+    public static final String USERS_BY_USERNAME = "users-by-username";
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,62 @@
+package com.ing.loan_service.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Stored outcome of a request sent with an Idempotency-Key. The row is inserted in the same transaction as the
+// request's own writes, so the primary key lets exactly one of several concurrent duplicates commit.
+@Entity
+@Table(name = "idempotency_records", indexes = {
+        @Index(name = "idx_idempotency_records_expires_at", columnList = "expiresAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+
+    // caller and key, e.g. "customer1:3f1c..."
+    @Id
+    @Column(length = 200)
+    private String id;
+
+    // SHA-256 of the request, a key reused for a different request is rejected
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    // JSON response body, written before the transaction commits
+    @Column(length = 4000)
+    private String response;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // assigned ids would make save() merge, i.e. SELECT before INSERT
+    @Transient
+    private boolean persisted;
+
+    public IdempotencyRecord(String id, String requestHash, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.id = id;
+        this.requestHash = requestHash;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+}
@@ -11,15 +11,25 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = {
+        // findLoansWithFilters / findByCustomerIdAnd*: customer plus optional status filters
+        @Index(name = "idx_loans_customer_paid_installments", columnList = "customer_id, isPaid, numberOfInstallment"),
+        // keyset pages of a customer's loans in (createDate, id) order
+        @Index(name = "idx_loans_customer_create_date", columnList = "customer_id, createDate, id")
+})
 @Data
 @NoArgsConstructor
 public class Loan {
 
+    // pooled sequence instead of IDENTITY so Hibernate can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loans_id_gen")
+    @SequenceGenerator(name = "loans_id_gen", sequenceName = "loans_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
@@ -36,6 +46,17 @@ public class Loan {
     @Column(nullable = false)
     private Boolean isPaid = false;
 
+    // Balance counters maintained by the payment transaction, so payoff and status checks never read installments
+    @Column(nullable = false)
+    private Integer paidInstallmentCount = 0;
+
+    // scheduled amount of the unpaid installments, before any early payment discount or late penalty
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal remainingAmount;
+
+    // due date of the oldest unpaid installment, null once the loan is paid off
+    private LocalDate nextDueDate;
+
     @OneToMany(mappedBy = "loan", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<LoanInstallment> installments;
@@ -45,6 +66,7 @@ public class Loan {
         this.loanAmount = loanAmount;
         this.numberOfInstallment = numberOfInstallment;
         this.createDate = LocalDateTime.now();
+        this.remainingAmount = loanAmount;
     }
 
     public Loan(Customer customer, BigDecimal loanAmount, Integer numberOfInstallment, List<LoanInstallment> installments) {
@@ -53,6 +75,7 @@ public class Loan {
         this.numberOfInstallment = numberOfInstallment;
         this.createDate = LocalDate.now().atStartOfDay();
         this.isPaid = false;
+        this.remainingAmount = loanAmount;
         this.installments = installments;
     }
 }
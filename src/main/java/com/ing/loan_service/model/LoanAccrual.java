@@ -0,0 +1,51 @@
+package com.ing.loan_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Daily snapshot row: what the unpaid installments of one loan would cost if settled on asOfDate.
+// Insert-only, keyed by plain ids instead of associations to stay compact.
+@Entity
+@Table(name = "loan_accruals", uniqueConstraints =
+        @UniqueConstraint(name = "uk_loan_accruals_date_loan", columnNames = {"asOfDate", "loanId"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanAccrual {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_accruals_id_gen")
+    @SequenceGenerator(name = "loan_accruals_id_gen", sequenceName = "loan_accruals_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate asOfDate;
+
+    @Column(nullable = false)
+    private Long loanId;
+
+    @Column(nullable = false)
+    private Long customerId;
+
+    @Column(nullable = false)
+    private Integer unpaidInstallments;
+
+    @Column(nullable = false)
+    private Integer overdueInstallments;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal scheduledAmount;
+
+    // late payment penalty accrued on the overdue installments
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal penaltyAmount;
+
+    // early payment discount available on the installments inside the payment window
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal discountAmount;
+}
@@ -9,16 +9,25 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "loan_installments")
+@Table(name = "loan_installments", indexes = {
+        // unpaid installments of a loan in due date order, the payment hot path
+        @Index(name = "idx_installments_loan_paid_due_date", columnList = "loan_id, isPaid, dueDate"),
+        // full schedule and keyset pages in (dueDate, id) order
+        @Index(name = "idx_installments_loan_due_date", columnList = "loan_id, dueDate, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class LoanInstallment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_installments_id_gen")
+    @SequenceGenerator(name = "loan_installments_id_gen", sequenceName = "loan_installments_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "loan_id", nullable = false)
     private Loan loan;
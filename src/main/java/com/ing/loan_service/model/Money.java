@@ -0,0 +1,59 @@
+package com.ing.loan_service.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fixed-point amount in cents for the schedule and penalty arithmetic.
+// Entities and DTOs keep BigDecimal; convert with of/toBigDecimal at those boundaries only.
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofCents(long cents) {
+        return new Money(cents);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return new Money(amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact());
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(cents, other.cents));
+    }
+
+    // cents * numerator / denominator, rounded HALF_UP (away from zero on ties) like BigDecimal.setScale(2, HALF_UP)
+    public Money multiply(long numerator, long denominator) {
+        return new Money(divideHalfUp(Math.multiplyExact(cents, numerator), denominator));
+    }
+
+    public boolean isLessThan(Money other) {
+        return cents < other.cents;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= Math.abs(divisor)) {
+            quotient += Long.signum(dividend) * Long.signum(divisor);
+        }
+        return quotient;
+    }
+}
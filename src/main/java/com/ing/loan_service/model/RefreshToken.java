@@ -0,0 +1,58 @@
+package com.ing.loan_service.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// An issued refresh token, stored by hash only. Tokens are single use: redeeming deletes the row with a
+// conditional DELETE, so of two concurrent redemptions of the same token only one finds a row to delete.
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expiresAt"),
+        @Index(name = "idx_refresh_tokens_username", columnList = "username")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class RefreshToken implements Persistable<String> {
+
+    // SHA-256 of the token, hex encoded
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // assigned ids would make save() merge, i.e. SELECT before INSERT
+    @Transient
+    private boolean persisted;
+
+    public RefreshToken(String id, String username, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.id = id;
+        this.username = username;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+}
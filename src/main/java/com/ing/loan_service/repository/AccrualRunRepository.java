@@ -0,0 +1,35 @@
+package com.ing.loan_service.repository;
+
+import com.ing.loan_service.model.AccrualRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface AccrualRunRepository extends JpaRepository<AccrualRun, LocalDate> {
+
+    // SELECT ... FOR UPDATE: a chunk holds the run row until it commits, so a claim can not slip in mid-chunk
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM AccrualRun r WHERE r.asOfDate = :asOfDate")
+    Optional<AccrualRun> findForUpdate(@Param("asOfDate") LocalDate asOfDate);
+
+    // 1 when the worker now owns the run; concurrent claimers queue on the row lock and only the first one matches
+    @Modifying
+    @Query("UPDATE AccrualRun r SET r.claimedBy = :worker, r.claimedUntil = :claimedUntil " +
+            "WHERE r.asOfDate = :asOfDate AND r.completed = false AND (r.claimedBy IS NULL OR r.claimedUntil < :now)")
+    int claim(@Param("asOfDate") LocalDate asOfDate, @Param("worker") String worker, @Param("now") LocalDateTime now,
+              @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    @Modifying
+    @Query("UPDATE AccrualRun r SET r.claimedBy = NULL, r.claimedUntil = NULL " +
+            "WHERE r.asOfDate = :asOfDate AND r.claimedBy = :worker")
+    int release(@Param("asOfDate") LocalDate asOfDate, @Param("worker") String worker);
+}
@@ -1,9 +1,31 @@
 package com.ing.loan_service.repository;
 
+import com.ing.loan_service.dto.CustomerCredit;
 import com.ing.loan_service.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Optional;
+
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    // Conditional UPDATE: returns 0 when the customer does not exist or has not enough available credit
+    @Modifying
+    @Query("UPDATE Customer c SET c.usedCreditLimit = c.usedCreditLimit + :amount, c.version = c.version + 1 " +
+            "WHERE c.id = :customerId AND c.creditLimit - c.usedCreditLimit >= :amount")
+    int reserveCredit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE Customer c SET c.usedCreditLimit = c.usedCreditLimit - :amount, c.version = c.version + 1 " +
+            "WHERE c.id = :customerId")
+    int releaseCredit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+
+    @Query("SELECT new com.ing.loan_service.dto.CustomerCredit(c.id, c.creditLimit - c.usedCreditLimit, c.version) " +
+            "FROM Customer c WHERE c.id = :customerId")
+    Optional<CustomerCredit> findCreditById(@Param("customerId") Long customerId);
 }
@@ -0,0 +1,27 @@
+package com.ing.loan_service.repository;
+
+import com.ing.loan_service.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.id = :id AND r.expiresAt > :now")
+    Optional<IdempotencyRecord> findLive(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    // frees an expired key for reuse before compaction got to it
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.expiresAt <= :now")
+    int deleteExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteAllExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,17 @@
+package com.ing.loan_service.repository;
+
+import com.ing.loan_service.model.LoanAccrual;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface LoanAccrualRepository extends JpaRepository<LoanAccrual, Long> {
+
+    @Query("SELECT a FROM LoanAccrual a WHERE a.asOfDate = :asOfDate ORDER BY a.loanId")
+    List<LoanAccrual> findByAsOfDate(@Param("asOfDate") LocalDate asOfDate);
+}
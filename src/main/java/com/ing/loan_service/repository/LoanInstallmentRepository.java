@@ -1,17 +1,63 @@
 package com.ing.loan_service.repository;
 
+import com.ing.loan_service.dto.AccrualInstallmentRow;
+import com.ing.loan_service.dto.InstallmentExportRow;
 import com.ing.loan_service.model.LoanInstallment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface LoanInstallmentRepository extends JpaRepository<LoanInstallment, Long> {
-    List<LoanInstallment> findByLoanIdOrderByDueDate(Long loanId);
+    // explicit loan_id predicate; the derived query outer joins loans and scans the installments table
+    @Query("SELECT i FROM LoanInstallment i WHERE i.loan.id = :loanId ORDER BY i.dueDate")
+    List<LoanInstallment> findByLoanIdOrderByDueDate(@Param("loanId") Long loanId);
+
+    // Keyset page ordered by (dueDate, id)
+    @Query("SELECT i FROM LoanInstallment i WHERE i.loan.id = :loanId " +
+            "AND (:afterDueDate IS NULL OR i.dueDate > :afterDueDate OR (i.dueDate = :afterDueDate AND i.id > :afterId)) " +
+            "ORDER BY i.dueDate, i.id")
+    List<LoanInstallment> findPageByLoanId(@Param("loanId") Long loanId,
+                                           @Param("afterDueDate") LocalDate afterDueDate,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
 
     @Query("SELECT i FROM LoanInstallment i WHERE i.loan.id = :loanId AND i.isPaid = false ORDER BY i.dueDate")
     List<LoanInstallment> findUnpaidByLoanIdOrderByDueDate(@Param("loanId") Long loanId);
+
+    @Query("SELECT i FROM LoanInstallment i WHERE i.loan.id IN :loanIds AND i.isPaid = false ORDER BY i.loan.id, i.dueDate")
+    List<LoanInstallment> findUnpaidByLoanIdInOrderByDueDate(@Param("loanIds") Collection<Long> loanIds);
+
+    @Query("SELECT new com.ing.loan_service.dto.AccrualInstallmentRow(l.id, l.customer.id, i.amount, i.dueDate) " +
+            "FROM LoanInstallment i JOIN i.loan l WHERE l.id IN :loanIds AND i.isPaid = false")
+    List<AccrualInstallmentRow> findAccrualRows(@Param("loanIds") Collection<Long> loanIds);
+
+    // Streams DTO rows (no managed entities) so an export never accumulates state in the persistence context
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new com.ing.loan_service.dto.InstallmentExportRow(l.customer.id, l.id, l.loanAmount, " +
+            "l.numberOfInstallment, l.isPaid, i.id, i.amount, i.paidAmount, i.dueDate, i.paymentDate, i.isPaid) " +
+            "FROM LoanInstallment i JOIN i.loan l " +
+            "WHERE l.customer.id = :customerId " +
+            "ORDER BY l.id, i.dueDate")
+    Stream<InstallmentExportRow> streamForExport(@Param("customerId") Long customerId);
+
+    // Whole portfolio; kept apart from streamForExport because an "IS NULL OR" filter would defeat the customer index
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new com.ing.loan_service.dto.InstallmentExportRow(l.customer.id, l.id, l.loanAmount, " +
+            "l.numberOfInstallment, l.isPaid, i.id, i.amount, i.paidAmount, i.dueDate, i.paymentDate, i.isPaid) " +
+            "FROM LoanInstallment i JOIN i.loan l " +
+            "ORDER BY l.id, i.dueDate")
+    Stream<InstallmentExportRow> streamAllForExport();
 }
@@ -1,26 +1,68 @@
 package com.ing.loan_service.repository;
 
+import com.ing.loan_service.dto.LoanSummary;
 import com.ing.loan_service.model.Loan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
 
-    List<Loan> findByCustomerId(Long customerId);
+    // Explicit queries on the customer_id column: the derived versions outer join customers,
+    // which makes H2 drive the plan from a scan of loans instead of the customer index.
+    @Query("SELECT l FROM Loan l WHERE l.customer.id = :customerId")
+    List<Loan> findByCustomerId(@Param("customerId") Long customerId);
 
-    List<Loan> findByCustomerIdAndIsPaid(Long customerId, Boolean isPaid);
+    @Query("SELECT COUNT(l) > 0 FROM Loan l WHERE l.id = :id AND l.customer.id = :customerId")
+    boolean existsByIdAndCustomerId(@Param("id") Long id, @Param("customerId") Long customerId);
 
-    List<Loan> findByCustomerIdAndNumberOfInstallment(Long customerId, Integer numberOfInstallment);
+    @Query("SELECT l FROM Loan l JOIN FETCH l.customer WHERE l.id IN :loanIds")
+    List<Loan> findWithCustomerByIdIn(@Param("loanIds") Collection<Long> loanIds);
 
-    @Query("SELECT l FROM Loan l WHERE l.customer.id = :customerId " +
+    @Query("SELECT l FROM Loan l WHERE l.customer.id = :customerId AND l.isPaid = :isPaid")
+    List<Loan> findByCustomerIdAndIsPaid(@Param("customerId") Long customerId, @Param("isPaid") Boolean isPaid);
+
+    @Query("SELECT l FROM Loan l WHERE l.customer.id = :customerId AND l.numberOfInstallment = :numberOfInstallment")
+    List<Loan> findByCustomerIdAndNumberOfInstallment(@Param("customerId") Long customerId,
+                                                      @Param("numberOfInstallment") Integer numberOfInstallment);
+
+    // Keyset page ordered by (createDate, id): rows after the given position, limited by the pageable
+    @Query("SELECT new com.ing.loan_service.dto.LoanSummary(l.id, l.customer.id, l.loanAmount, " +
+            "l.numberOfInstallment, l.createDate, l.isPaid, l.paidInstallmentCount, l.remainingAmount, l.nextDueDate, " +
+            "l.version) " +
+            "FROM Loan l " +
+            "WHERE l.customer.id = :customerId " +
             "AND (:isPaid IS NULL OR l.isPaid = :isPaid) " +
-            "AND (:numberOfInstallment IS NULL OR l.numberOfInstallment = :numberOfInstallment)")
-    List<Loan> findLoansWithFilters(@Param("customerId") Long customerId,
-                                    @Param("isPaid") Boolean isPaid,
-                                    @Param("numberOfInstallment") Integer numberOfInstallment);
+            "AND (:numberOfInstallment IS NULL OR l.numberOfInstallment = :numberOfInstallment) " +
+            "AND (:afterCreateDate IS NULL OR l.createDate > :afterCreateDate " +
+            "OR (l.createDate = :afterCreateDate AND l.id > :afterId)) " +
+            "ORDER BY l.createDate, l.id")
+    List<LoanSummary> findLoansWithFilters(@Param("customerId") Long customerId,
+                                           @Param("isPaid") Boolean isPaid,
+                                           @Param("numberOfInstallment") Integer numberOfInstallment,
+                                           @Param("afterCreateDate") LocalDateTime afterCreateDate,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    // Keyset walk over open loans in id order, the chunking of the accrual job
+    @Query("SELECT l.id FROM Loan l WHERE l.isPaid = false AND l.id > :afterId ORDER BY l.id")
+    List<Long> findOpenLoanIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.ing.loan_service.dto.LoanSummary(l.id, l.customer.id, l.loanAmount, " +
+            "l.numberOfInstallment, l.createDate, l.isPaid, l.paidInstallmentCount, l.remainingAmount, l.nextDueDate, " +
+            "l.version) " +
+            "FROM Loan l WHERE l.id = :loanId")
+    Optional<LoanSummary> findSummaryById(@Param("loanId") Long loanId);
+
+    // Bumped by every payment on the loan; a primary key lookup that never reads installments
+    @Query("SELECT l.version FROM Loan l WHERE l.id = :loanId")
+    Optional<Long> findVersionById(@Param("loanId") Long loanId);
 }
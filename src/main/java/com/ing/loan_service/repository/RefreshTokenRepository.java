@@ -0,0 +1,31 @@
+package com.ing.loan_service.repository;
+
+import com.ing.loan_service.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    @Query("SELECT t.username FROM RefreshToken t WHERE t.id = :id AND t.expiresAt > :now")
+    Optional<String> findLiveUsername(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    // Conditional DELETE: returns 0 when the token expired or was already redeemed
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.id = :id AND t.expiresAt > :now")
+    int deleteLive(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt <= :now")
+    int deleteAllExpired(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.username = :username")
+    int deleteAllByUsername(@Param("username") String username);
+}
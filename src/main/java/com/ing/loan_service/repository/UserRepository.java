@@ -1,12 +1,27 @@
 package com.ing.loan_service.repository;
 
+import com.ing.loan_service.model.CacheRegions;
 import com.ing.loan_service.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    // caches the user's id per username; the row itself comes from the users entity region
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = CacheRegions.USERS_BY_USERNAME)})
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT u.customer.id FROM User u WHERE u.username = :username")
+    Optional<Long> findCustomerIdByUsername(@Param("username") String username);
 }
@@ -0,0 +1,240 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.AccrualInstallmentRow;
+import com.ing.loan_service.dto.AccrualSummary;
+import com.ing.loan_service.exception.AccrualInProgressException;
+import com.ing.loan_service.model.AccrualRun;
+import com.ing.loan_service.model.LoanAccrual;
+import com.ing.loan_service.model.Money;
+import com.ing.loan_service.repository.AccrualRunRepository;
+import com.ing.loan_service.repository.LoanAccrualRepository;
+import com.ing.loan_service.repository.LoanInstallmentRepository;
+import com.ing.loan_service.repository.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+// Daily as-of-date accrual of late penalties and early discounts over every open loan. Loans are walked in id
+// order, one chunk per transaction; the chunk's math runs on a dedicated ForkJoin pool and its snapshot rows
+// commit together with the run checkpoint, so an interrupted run resumes after the last committed chunk. A run is
+// claimed on its AccrualRun row first, which keeps it to one worker across every instance sharing the database.
+@Service
+public class AccrualService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccrualService.class);
+
+    private final LoanRepository loanRepository;
+    private final LoanInstallmentRepository installmentRepository;
+    private final LoanAccrualRepository accrualRepository;
+    private final AccrualRunRepository runRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final ExecutorService runner =
+            Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "accrual-runner"));
+    private final int chunkSize;
+    private final Duration claimTimeout;
+
+    public AccrualService(LoanRepository loanRepository, LoanInstallmentRepository installmentRepository,
+                          LoanAccrualRepository accrualRepository, AccrualRunRepository runRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${accrual.chunk-size}") int chunkSize,
+                          @Value("${accrual.parallelism}") int parallelism,
+                          @Value("${accrual.claim-timeout}") Duration claimTimeout) {
+        this.loanRepository = loanRepository;
+        this.installmentRepository = installmentRepository;
+        this.accrualRepository = accrualRepository;
+        this.runRepository = runRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.claimTimeout = claimTimeout;
+        // 0 means one worker per core
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Another instance already holding today's run is not an error here, it is simply left to finish
+    @Scheduled(cron = "${accrual.cron}")
+    public void accrueToday() {
+        try {
+            accrue(LocalDate.now());
+        } catch (AccrualInProgressException e) {
+            log.info("Skipping the scheduled accrual: {}", e.getMessage());
+        }
+    }
+
+    // Starts or resumes the run for the date on the calling thread; a completed run is returned unchanged
+    public AccrualSummary accrue(LocalDate asOfDate) {
+        Optional<String> worker = claim(asOfDate);
+        if (worker.isEmpty()) {
+            return completedRun(asOfDate);
+        }
+        return process(asOfDate, worker.get());
+    }
+
+    // Claims the run for the date and processes it in the background. The claim is taken before returning, so a run
+    // already in progress is refused at once; the returned summary is the run as claimed (or as completed earlier).
+    public AccrualSummary start(LocalDate asOfDate) {
+        Optional<String> worker = claim(asOfDate);
+        if (worker.isEmpty()) {
+            return completedRun(asOfDate);
+        }
+        AccrualSummary claimed = findRun(asOfDate).orElseThrow();
+        runner.execute(() -> {
+            try {
+                process(asOfDate, worker.get());
+            } catch (RuntimeException e) {
+                // the claim is released, so the run resumes from its last chunk when started again
+                log.error("Accrual run for {} failed", asOfDate, e);
+            }
+        });
+        return claimed;
+    }
+
+    public Optional<AccrualSummary> findRun(LocalDate asOfDate) {
+        return runRepository.findById(asOfDate).map(this::toSummary);
+    }
+
+    // The run row is created on first use and then claimed with a conditional UPDATE. Concurrent claimers, in this
+    // JVM or another instance, serialize on the row lock and only the first one gets a worker id back.
+    private Optional<String> claim(LocalDate asOfDate) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!runRepository.existsById(asOfDate)) {
+                    runRepository.saveAndFlush(new AccrualRun(asOfDate));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent claimer inserted it first, the claim below settles which of us runs
+        }
+        String worker = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status ->
+                runRepository.claim(asOfDate, worker, now, now.plus(claimTimeout)));
+        return claimed == 1 ? Optional.of(worker) : Optional.empty();
+    }
+
+    private AccrualSummary completedRun(LocalDate asOfDate) {
+        AccrualRun run = runRepository.findById(asOfDate).orElseThrow();
+        if (!run.getCompleted()) {
+            throw new AccrualInProgressException("The accrual run for " + asOfDate + " is already in progress");
+        }
+        return toSummary(run);
+    }
+
+    private AccrualSummary process(LocalDate asOfDate, String worker) {
+        try {
+            AccrualRun run;
+            do {
+                run = transactionTemplate.execute(status -> processChunk(asOfDate, worker));
+            } while (!run.getCompleted());
+            return toSummary(run);
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> runRepository.release(asOfDate, worker));
+        }
+    }
+
+    private AccrualRun processChunk(LocalDate asOfDate, String worker) {
+        AccrualRun run = runRepository.findForUpdate(asOfDate).orElseThrow();
+        // a claim that outlived claimedUntil may have been taken over; the new owner continues from this checkpoint
+        if (!worker.equals(run.getClaimedBy())) {
+            throw new AccrualInProgressException("The accrual run for " + asOfDate + " was taken over by another worker");
+        }
+        run.setClaimedUntil(LocalDateTime.now().plus(claimTimeout));
+        List<Long> loanIds = loanRepository.findOpenLoanIdsAfter(run.getLastLoanId(), PageRequest.of(0, chunkSize));
+        if (loanIds.isEmpty()) {
+            run.setCompleted(true);
+            run.setCompletedAt(LocalDateTime.now());
+            return run;
+        }
+
+        Collection<List<AccrualInstallmentRow>> installmentsByLoan = installmentRepository.findAccrualRows(loanIds)
+                .stream()
+                .collect(Collectors.groupingBy(AccrualInstallmentRow::getLoanId))
+                .values();
+        List<LoanAccrual> accruals = pool.submit(() -> installmentsByLoan.parallelStream()
+                        .map(installments -> accrueLoan(asOfDate, installments))
+                        .toList())
+                .join();
+        accrualRepository.saveAll(accruals);
+
+        Money scheduled = Money.of(run.getScheduledAmount());
+        Money penalty = Money.of(run.getPenaltyAmount());
+        Money discount = Money.of(run.getDiscountAmount());
+        long overdue = run.getOverdueInstallments();
+        for (LoanAccrual accrual : accruals) {
+            scheduled = scheduled.plus(Money.of(accrual.getScheduledAmount()));
+            penalty = penalty.plus(Money.of(accrual.getPenaltyAmount()));
+            discount = discount.plus(Money.of(accrual.getDiscountAmount()));
+            overdue += accrual.getOverdueInstallments();
+        }
+        run.setScheduledAmount(scheduled.toBigDecimal());
+        run.setPenaltyAmount(penalty.toBigDecimal());
+        run.setDiscountAmount(discount.toBigDecimal());
+        run.setOverdueInstallments(overdue);
+        run.setLoansProcessed(run.getLoansProcessed() + accruals.size());
+        run.setChunksProcessed(run.getChunksProcessed() + 1);
+        run.setLastLoanId(loanIds.get(loanIds.size() - 1));
+        return run;
+    }
+
+    // Pure per-loan math, safe to run on any pool thread
+    static LoanAccrual accrueLoan(LocalDate asOfDate, List<AccrualInstallmentRow> installments) {
+        LocalDate maxPayableDate = asOfDate.plusMonths(LoanService.PAYMENT_WINDOW_MONTHS);
+        Money scheduled = Money.ZERO;
+        Money penalty = Money.ZERO;
+        Money discount = Money.ZERO;
+        int overdue = 0;
+        for (AccrualInstallmentRow installment : installments) {
+            Money amount = Money.of(installment.getAmount());
+            scheduled = scheduled.plus(amount);
+            if (installment.getDueDate().isBefore(asOfDate)) {
+                overdue++;
+                penalty = penalty.plus(LoanService.effectiveAmount(amount, installment.getDueDate(), asOfDate).minus(amount));
+            } else if (!installment.getDueDate().isAfter(maxPayableDate)) {
+                discount = discount.plus(amount.minus(LoanService.effectiveAmount(amount, installment.getDueDate(), asOfDate)));
+            }
+        }
+        AccrualInstallmentRow first = installments.get(0);
+        return new LoanAccrual(null, asOfDate, first.getLoanId(), first.getCustomerId(), installments.size(), overdue,
+                scheduled.toBigDecimal(), penalty.toBigDecimal(), discount.toBigDecimal());
+    }
+
+    private AccrualSummary toSummary(AccrualRun run) {
+        return AccrualSummary.builder()
+                .asOfDate(run.getAsOfDate())
+                .completed(run.getCompleted())
+                .chunksProcessed(run.getChunksProcessed())
+                .loansProcessed(run.getLoansProcessed())
+                .overdueInstallments(run.getOverdueInstallments())
+                .scheduledAmount(run.getScheduledAmount())
+                .penaltyAmount(run.getPenaltyAmount())
+                .discountAmount(run.getDiscountAmount())
+                .startedAt(run.getStartedAt())
+                .completedAt(run.getCompletedAt())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,8 @@
+package com.ing.loan_service.service;
+
+// Loan state changes recorded in the audit journal; the ordinal is stored, so only append new types
+public enum AuditEventType {
+    LOAN_CREATED,
+    LOAN_PAID,
+    LOAN_CLOSED
+}
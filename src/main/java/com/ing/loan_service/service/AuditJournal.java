@@ -0,0 +1,153 @@
+package com.ing.loan_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Append-only journal of committed loan state changes. The committing thread only builds the record and offers it
+// to a lock-free ring buffer; a single writer thread drains the buffer into memory-mapped segment files and forces
+// them to disk once per flush interval, so request threads never wait on journal I/O. When the writer falls so far
+// behind that the buffer is full the record is dropped and counted instead (audit.journal.dropped).
+@Service
+public class AuditJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditJournal.class);
+    private static final String SYSTEM_ACTOR = "system";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Path directory;
+    private final RingBuffer<AuditRecord> buffer;
+    private final AuditSegmentWriter writer;
+    private final long flushIntervalNanos;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    public AuditJournal(@Value("${audit.directory}") String directory,
+                        @Value("${audit.segment-size}") DataSize segmentSize,
+                        @Value("${audit.buffer-capacity}") int bufferCapacity,
+                        @Value("${audit.flush-interval}") Duration flushInterval,
+                        MeterRegistry registry) throws IOException {
+        this.directory = Path.of(directory);
+        this.buffer = new RingBuffer<>(bufferCapacity);
+        this.writer = new AuditSegmentWriter(this.directory, Math.toIntExact(segmentSize.toBytes()));
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.written = counter(registry, "audit.journal.written", "Records appended to the audit journal");
+        this.dropped = counter(registry, "audit.journal.dropped", "Records dropped because the buffer was full");
+        this.failed = counter(registry, "audit.journal.failed", "Records lost to a journal write error");
+        Gauge.builder("audit.journal.backlog", buffer, RingBuffer::size)
+                .description("Records waiting for the journal writer")
+                .register(registry);
+        this.writerThread = new Thread(this::drain, "audit-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // Runs on the committing thread, which still holds the request's security context
+    @TransactionalEventListener
+    public void onLoanAudit(LoanAuditEvent event) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        append(new AuditRecord(0, Instant.now(), event.type(),
+                authentication != null ? authentication.getName() : SYSTEM_ACTOR,
+                event.loanId(), event.customerId(), event.amount(), event.installments()));
+    }
+
+    // Hands the record to the writer thread without blocking; false when it was dropped
+    public boolean append(AuditRecord record) {
+        if (running && buffer.offer(record)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    // Written records only, newest excluded while they wait in the buffer; null filters match everything
+    public List<AuditRecord> query(Long loanId, Long customerId, String actor, AuditEventType type,
+                                   long afterSequence, int limit) {
+        try {
+            return AuditJournalReader.query(directory, record ->
+                    (loanId == null || loanId.equals(record.loanId()))
+                            && (customerId == null || customerId.equals(record.customerId()))
+                            && (actor == null || actor.equals(record.actor()))
+                            && (type == null || type == record.type()), afterSequence, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Writes what is already buffered, forces it and releases the directory
+    @PreDestroy
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+    }
+
+    private void drain() {
+        long lastForce = System.nanoTime();
+        while (true) {
+            AuditRecord record = buffer.poll();
+            if (record != null) {
+                write(record);
+            } else if (!running) {
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            if (System.nanoTime() - lastForce >= flushIntervalNanos) {
+                force();
+                lastForce = System.nanoTime();
+            }
+        }
+    }
+
+    private void write(AuditRecord record) {
+        try {
+            writer.append(record);
+            written.increment();
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            log.error("Could not append {} for loan {} to the audit journal", record.type(), record.loanId(), e);
+        }
+    }
+
+    private void force() {
+        if (!writer.hasUnforcedWrites()) {
+            return;
+        }
+        try {
+            writer.force();
+        } catch (RuntimeException e) {
+            log.error("Could not force the audit journal to disk", e);
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String description) {
+        return Counter.builder(name).description(description).register(registry);
+    }
+}
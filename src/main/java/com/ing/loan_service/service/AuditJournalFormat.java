@@ -0,0 +1,152 @@
+package com.ing.loan_service.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// On-disk layout of the audit journal. A segment file starts with a header (magic, format version) followed by
+// frames of [int payload length][int CRC32C of the payload][payload]; the file is zero filled, so a zero length
+// marks the end of the written part. Segments are named after the sequence number of their first record, which
+// makes name order journal order.
+final class AuditJournalFormat {
+
+    static final int MAGIC = 0x41554454; // "AUDT"
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 8;
+    static final int FRAME_HEADER_SIZE = 8;
+    // actor and amount are stored as length-prefixed text of at most this many bytes
+    static final int MAX_TEXT_BYTES = 255;
+    static final int MAX_PAYLOAD_SIZE = 8 + 8 + 1 + 8 + 8 + 4 + 2 * (2 + MAX_TEXT_BYTES);
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final long NO_ID = Long.MIN_VALUE;
+
+    private AuditJournalFormat() {
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // Segment files of the directory in journal order, empty when the directory does not exist yet
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static void writeHeader(ByteBuffer segment) {
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERSION);
+    }
+
+    // false for a segment created but not written yet (a crash or a reader racing the writer's roll)
+    static boolean checkHeader(ByteBuffer segment, Path file) {
+        if (segment.capacity() < SEGMENT_HEADER_SIZE || (segment.getInt(0) == 0 && segment.getInt(4) == 0)) {
+            return false;
+        }
+        if (segment.getInt(0) != MAGIC) {
+            throw new IllegalStateException(file + " is not an audit journal segment");
+        }
+        if (segment.getInt(4) != VERSION) {
+            throw new IllegalStateException(file + " has unsupported audit journal version " + segment.getInt(4));
+        }
+        return true;
+    }
+
+    static void writePayload(ByteBuffer buffer, AuditRecord record) {
+        buffer.putLong(record.sequence());
+        buffer.putLong(record.timestamp().toEpochMilli());
+        buffer.put((byte) record.type().ordinal());
+        buffer.putLong(record.loanId() == null ? NO_ID : record.loanId());
+        buffer.putLong(record.customerId() == null ? NO_ID : record.customerId());
+        buffer.putInt(record.installments());
+        putText(buffer, record.amount() == null ? null : record.amount().toPlainString());
+        putText(buffer, record.actor());
+    }
+
+    static AuditRecord readPayload(ByteBuffer buffer) {
+        long sequence = buffer.getLong();
+        Instant timestamp = Instant.ofEpochMilli(buffer.getLong());
+        AuditEventType type = AuditEventType.values()[buffer.get()];
+        long loanId = buffer.getLong();
+        long customerId = buffer.getLong();
+        int installments = buffer.getInt();
+        String amount = getText(buffer);
+        String actor = getText(buffer);
+        return new AuditRecord(sequence, timestamp, type, actor, loanId == NO_ID ? null : loanId,
+                customerId == NO_ID ? null : customerId, amount == null ? null : new BigDecimal(amount), installments);
+    }
+
+    static int checksum(ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    // Decodes the frame at the position and moves past it; null at the end of the written part or at a torn frame,
+    // with the position left at that frame
+    static AuditRecord readFrame(ByteBuffer segment) {
+        int position = segment.position();
+        if (segment.remaining() < FRAME_HEADER_SIZE) {
+            return null;
+        }
+        int length = segment.getInt(position);
+        if (length <= 0 || length > MAX_PAYLOAD_SIZE || length > segment.remaining() - FRAME_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer payload = segment.slice(position + FRAME_HEADER_SIZE, length);
+        if (checksum(payload) != segment.getInt(position + 4)) {
+            return null;
+        }
+        AuditRecord record = readPayload(payload);
+        segment.position(position + FRAME_HEADER_SIZE + length);
+        return record;
+    }
+
+    private static void putText(ByteBuffer buffer, String text) {
+        if (text == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        // cut at a character boundary
+        while (bytes.length > MAX_TEXT_BYTES) {
+            text = text.substring(0, text.length() - 1);
+            bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getText(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
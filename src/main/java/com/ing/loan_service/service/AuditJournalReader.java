@@ -0,0 +1,78 @@
+package com.ing.loan_service.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static com.ing.loan_service.service.AuditJournalFormat.*;
+
+// Reads an audit journal directory, also while a writer appends to it: each segment is mapped read-only and read up
+// to its first empty or torn frame. Needs no Spring context, AuditJournalTool uses it on a copied journal.
+public final class AuditJournalReader {
+
+    private AuditJournalReader() {
+    }
+
+    // Every record in sequence order
+    public static void replay(Path directory, Consumer<AuditRecord> consumer) throws IOException {
+        scan(directory, 0, record -> {
+            consumer.accept(record);
+            return true;
+        });
+    }
+
+    // Up to limit matching records with a sequence number above afterSequence, in sequence order. Segments wholly
+    // before afterSequence are skipped by name, so paging with the last sequence returned stays cheap.
+    public static List<AuditRecord> query(Path directory, Predicate<AuditRecord> filter, long afterSequence,
+                                          int limit) throws IOException {
+        List<AuditRecord> matches = new ArrayList<>();
+        if (limit <= 0) {
+            return matches;
+        }
+        scan(directory, afterSequence, record -> {
+            if (filter.test(record)) {
+                matches.add(record);
+            }
+            return matches.size() < limit;
+        });
+        return matches;
+    }
+
+    // Feeds the records after afterSequence to the visitor until it returns false
+    private static void scan(Path directory, long afterSequence, Predicate<AuditRecord> visitor) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                continue;
+            }
+            if (!scanSegment(segments.get(i), afterSequence, visitor)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean scanSegment(Path file, long afterSequence, Predicate<AuditRecord> visitor)
+            throws IOException {
+        MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (!checkHeader(segment, file)) {
+            return true;
+        }
+        segment.position(SEGMENT_HEADER_SIZE);
+        AuditRecord record;
+        while ((record = readFrame(segment)) != null) {
+            if (record.sequence() > afterSequence && !visitor.test(record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
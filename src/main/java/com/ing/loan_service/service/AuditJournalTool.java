@@ -0,0 +1,55 @@
+package com.ing.loan_service.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Predicate;
+
+// Prints audit journal records, one per line, from a journal directory (a live one or a copy). Needs only the JDK
+// and the compiled classes:
+//   java -cp target/classes com.ing.loan_service.service.AuditJournalTool <directory> [--loan=ID]
+//        [--customer=ID] [--actor=NAME] [--type=LOAN_PAID] [--after=SEQUENCE] [--limit=N]
+// Without filters or a limit it replays the whole journal.
+public final class AuditJournalTool {
+
+    private AuditJournalTool() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AuditJournalTool <directory> [--loan=ID] [--customer=ID] [--actor=NAME]"
+                    + " [--type=TYPE] [--after=SEQUENCE] [--limit=N]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        Predicate<AuditRecord> filter = record -> true;
+        long afterSequence = 0;
+        int limit = Integer.MAX_VALUE;
+        for (int i = 1; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Expected --name=value, got " + args[i]);
+            }
+            String value = option[1];
+            switch (option[0]) {
+                case "--loan" -> filter = filter.and(record -> Long.valueOf(value).equals(record.loanId()));
+                case "--customer" -> filter = filter.and(record -> Long.valueOf(value).equals(record.customerId()));
+                case "--actor" -> filter = filter.and(record -> value.equals(record.actor()));
+                case "--type" -> {
+                    AuditEventType type = AuditEventType.valueOf(value);
+                    filter = filter.and(record -> record.type() == type);
+                }
+                case "--after" -> afterSequence = Long.parseLong(value);
+                case "--limit" -> limit = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option " + option[0]);
+            }
+        }
+        AuditJournalReader.query(directory, filter, afterSequence, limit).forEach(AuditJournalTool::print);
+    }
+
+    private static void print(AuditRecord record) {
+        System.out.printf("%d %s %s actor=%s loan=%s customer=%s amount=%s installments=%d%n",
+                record.sequence(), record.timestamp(), record.type(), record.actor(), record.loanId(),
+                record.customerId(), record.amount() == null ? "-" : record.amount().toPlainString(),
+                record.installments());
+    }
+}
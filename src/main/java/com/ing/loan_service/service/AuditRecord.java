@@ -0,0 +1,14 @@
+package com.ing.loan_service.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// One audit journal entry. The sequence number is assigned by the journal writer and orders the whole journal;
+// timestamp is the time the change committed and actor the authenticated user, or "system" without one.
+public record AuditRecord(long sequence, Instant timestamp, AuditEventType type, String actor, Long loanId,
+                          Long customerId, BigDecimal amount, int installments) {
+
+    public AuditRecord withSequence(long sequence) {
+        return new AuditRecord(sequence, timestamp, type, actor, loanId, customerId, amount, installments);
+    }
+}
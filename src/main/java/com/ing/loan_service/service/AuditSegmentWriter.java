@@ -0,0 +1,158 @@
+package com.ing.loan_service.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.ing.loan_service.service.AuditJournalFormat.*;
+import static java.nio.file.StandardOpenOption.*;
+
+// Appends frames to the current segment through a memory mapping, so an append is a memory copy and never a
+// system call; the page cache writes the pages back and force() makes them durable. A segment that can not take
+// the next frame is forced and replaced by a new one. Not thread safe: the journal's writer thread owns it, and
+// a lock file keeps a second process off the directory.
+final class AuditSegmentWriter implements Closeable {
+
+    private static final String LOCK_FILE = "journal.lock";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final ByteBuffer payload = ByteBuffer.allocate(MAX_PAYLOAD_SIZE);
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int forcedPosition;
+    private long nextSequence;
+
+    AuditSegmentWriter(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < SEGMENT_HEADER_SIZE + FRAME_HEADER_SIZE + MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException("Segment size " + segmentSize + " can not hold a record");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), CREATE, WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IllegalStateException(directory + " is in use by another audit journal");
+        }
+        this.lock = acquired;
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            lock.release();
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    // Writes the record as the next frame and returns it with its sequence number
+    AuditRecord append(AuditRecord record) throws IOException {
+        AuditRecord sequenced = record.withSequence(nextSequence);
+        payload.clear();
+        writePayload(payload, sequenced);
+        payload.flip();
+        int length = payload.remaining();
+        if (segment.remaining() < FRAME_HEADER_SIZE + length) {
+            roll();
+        }
+        int position = segment.position();
+        segment.put(position + FRAME_HEADER_SIZE, payload, 0, length);
+        segment.putInt(position + 4, checksum(payload));
+        // the length makes the frame visible to readers of the mapping, so it goes last
+        VarHandle.releaseFence();
+        segment.putInt(position, length);
+        segment.position(position + FRAME_HEADER_SIZE + length);
+        nextSequence++;
+        return sequenced;
+    }
+
+    boolean hasUnforcedWrites() {
+        return segment.position() > forcedPosition;
+    }
+
+    // Writes the frames appended since the last force through to the device
+    void force() {
+        int position = segment.position();
+        if (position > forcedPosition) {
+            segment.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            force();
+            channel.close();
+        } finally {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    // Continues after the last complete frame of the newest segment. A crash can leave a torn frame, or frames past
+    // one, behind it; they are zeroed so readers stop where the next append goes.
+    private void recover() throws IOException {
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        channel = FileChannel.open(last, READ, WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), segmentSize));
+        nextSequence = firstSequence(last);
+        if (!checkHeader(segment, last)) {
+            writeHeader(segment);
+        }
+        segment.position(SEGMENT_HEADER_SIZE);
+        AuditRecord record;
+        while ((record = readFrame(segment)) != null) {
+            nextSequence = record.sequence() + 1;
+        }
+        boolean zeroed = false;
+        for (int i = segment.position(); i < segment.limit(); i++) {
+            if (segment.get(i) != 0) {
+                segment.put(i, (byte) 0);
+                zeroed = true;
+            }
+        }
+        if (zeroed) {
+            segment.force();
+        }
+        forcedPosition = segment.position();
+    }
+
+    private void roll() throws IOException {
+        force();
+        // the old mapping is released when it is garbage collected
+        channel.close();
+        openSegment(nextSequence);
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        channel = FileChannel.open(directory.resolve(segmentName(firstSequence)), CREATE_NEW, READ, WRITE);
+        // mapping past the end grows the file; the new pages read as zeros
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        writeHeader(segment);
+        segment.position(SEGMENT_HEADER_SIZE);
+        forcedPosition = 0;
+        nextSequence = firstSequence;
+    }
+}
@@ -0,0 +1,168 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.BatchPaymentRequest;
+import com.ing.loan_service.dto.BatchPaymentResult;
+import com.ing.loan_service.model.Loan;
+import com.ing.loan_service.model.LoanInstallment;
+import com.ing.loan_service.repository.LoanInstallmentRepository;
+import com.ing.loan_service.repository.LoanRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Applies large payment files: items are grouped by loan and settled chunk by chunk, one transaction per chunk.
+// A chunk lost to an optimistic lock conflict is replayed loan by loan.
+@Service
+public class BatchPaymentService {
+
+    private final LoanService loanService;
+    private final LoanRepository loanRepository;
+    private final LoanInstallmentRepository installmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentMetrics paymentMetrics;
+    private final int chunkSize;
+
+    public BatchPaymentService(LoanService loanService, LoanRepository loanRepository,
+                               LoanInstallmentRepository installmentRepository,
+                               PlatformTransactionManager transactionManager, PaymentMetrics paymentMetrics,
+                               @Value("${payment-batch.chunk-size}") int chunkSize) {
+        this.loanService = loanService;
+        this.loanRepository = loanRepository;
+        this.installmentRepository = installmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.paymentMetrics = paymentMetrics;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<BatchPaymentResult> payLoans(List<BatchPaymentRequest.Item> payments) {
+        // loan id -> item indexes, payments for the same loan are applied in request order
+        Map<Long, List<Integer>> itemsByLoan = new LinkedHashMap<>();
+        for (int index = 0; index < payments.size(); index++) {
+            itemsByLoan.computeIfAbsent(payments.get(index).getLoanId(), loanId -> new ArrayList<>()).add(index);
+        }
+
+        BatchPaymentResult[] results = new BatchPaymentResult[payments.size()];
+        List<Long> loanIds = new ArrayList<>(itemsByLoan.keySet());
+
+        for (int from = 0; from < loanIds.size(); from += chunkSize) {
+            List<Long> chunk = loanIds.subList(from, Math.min(from + chunkSize, loanIds.size()));
+            if (!payInTransaction(chunk, itemsByLoan, payments, results)) {
+                // a concurrent payment touched one of the chunk's loans; replayed one loan per transaction, only
+                // that loan fails
+                for (Long loanId : chunk) {
+                    payInTransaction(List.of(loanId), itemsByLoan, payments, results);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    // Settles the loans in one transaction and records their results. Returns false, recording nothing, when an
+    // optimistic lock conflict rolled back a transaction of several loans, which are then worth replaying alone.
+    private boolean payInTransaction(List<Long> loanIds, Map<Long, List<Integer>> itemsByLoan,
+                                     List<BatchPaymentRequest.Item> payments, BatchPaymentResult[] results) {
+        // outcomes are only counted once the transaction's fate is known
+        List<RuntimeException> rejections = new ArrayList<>();
+        try {
+            List<BatchPaymentResult> chunkResults = transactionTemplate.execute(
+                    status -> payChunk(loanIds, itemsByLoan, payments, rejections));
+            chunkResults.forEach(result -> results[result.getIndex()] = result);
+            chunkResults.stream()
+                    .filter(result -> BatchPaymentResult.PAID.equals(result.getStatus()))
+                    .forEach(result -> paymentMetrics.paid());
+            rejections.forEach(paymentMetrics::rejected);
+            return true;
+        } catch (RuntimeException e) {
+            if (e instanceof OptimisticLockingFailureException && loanIds.size() > 1) {
+                return false;
+            }
+            // the transaction was rolled back, so none of its items were applied
+            for (Long loanId : loanIds) {
+                itemsByLoan.get(loanId).forEach(index -> {
+                    results[index] = failed(index, loanId, e.getMessage());
+                    paymentMetrics.rejected(e);
+                });
+            }
+            return true;
+        }
+    }
+
+    private List<BatchPaymentResult> payChunk(List<Long> loanIds, Map<Long, List<Integer>> itemsByLoan,
+                                              List<BatchPaymentRequest.Item> payments,
+                                              List<RuntimeException> rejections) {
+        Map<Long, Loan> loans = loanRepository.findWithCustomerByIdIn(loanIds).stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+        Map<Long, List<LoanInstallment>> unpaidByLoan = installmentRepository.findUnpaidByLoanIdInOrderByDueDate(loanIds)
+                .stream()
+                .collect(Collectors.groupingBy(installment -> installment.getLoan().getId()));
+
+        LocalDate today = LocalDate.now();
+        List<BatchPaymentResult> results = new ArrayList<>();
+
+        for (Long loanId : loanIds) {
+            Loan loan = loans.get(loanId);
+            List<LoanInstallment> unpaidInstallments = new ArrayList<>(unpaidByLoan.getOrDefault(loanId, List.of()));
+
+            for (int index : itemsByLoan.get(loanId)) {
+                if (loan == null) {
+                    RuntimeException notFound = new RuntimeException("Loan not found");
+                    rejections.add(notFound);
+                    results.add(failed(index, loanId, notFound.getMessage()));
+                    continue;
+                }
+                try {
+                    List<LoanInstallment> paidInstallments = loanService.settleInstallments(unpaidInstallments,
+                            payments.get(index).getAmount(), today);
+                    loanService.recordPayment(loan, paidInstallments, unpaidInstallments);
+                    // paid installments are always the oldest ones
+                    unpaidInstallments.subList(0, paidInstallments.size()).clear();
+
+                    boolean loanFullyPaid = loan.getNextDueDate() == null;
+                    if (loanFullyPaid) {
+                        loanService.closeLoan(loan);
+                    }
+                    results.add(paid(index, loanId, paidInstallments.size(),
+                            loanService.totalPaid(paidInstallments), loanFullyPaid));
+                } catch (RuntimeException e) {
+                    rejections.add(e);
+                    results.add(failed(index, loanId, e.getMessage()));
+                }
+            }
+        }
+        // dirty installments, loans and customers are flushed as JDBC batches on commit
+        return results;
+    }
+
+    private BatchPaymentResult paid(int index, Long loanId, int installmentsPaid, BigDecimal totalAmountSpent,
+                                    boolean loanFullyPaid) {
+        return BatchPaymentResult.builder()
+                .index(index)
+                .loanId(loanId)
+                .status(BatchPaymentResult.PAID)
+                .installmentsPaid(installmentsPaid)
+                .totalAmountSpent(totalAmountSpent)
+                .loanFullyPaid(loanFullyPaid)
+                .build();
+    }
+
+    private BatchPaymentResult failed(int index, Long loanId, String error) {
+        return BatchPaymentResult.builder()
+                .index(index)
+                .loanId(loanId)
+                .status(BatchPaymentResult.FAILED)
+                .error(error)
+                .build();
+    }
+}
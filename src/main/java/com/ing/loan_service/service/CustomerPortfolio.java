@@ -0,0 +1,58 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.LoanSummary;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Immutable snapshot of a customer's loans, in (createDate, id) order, and their available credit.
+// Updates produce a new snapshot and keep whichever side carries the higher row version.
+public record CustomerPortfolio(Long customerId, BigDecimal availableCredit, Long customerVersion,
+                                List<LoanSummary> loans) {
+
+    private static final Comparator<LoanSummary> LISTING_ORDER =
+            Comparator.comparing(LoanSummary::getCreateDate).thenComparing(LoanSummary::getLoanId);
+
+    public CustomerPortfolio {
+        loans = List.copyOf(loans);
+    }
+
+    public CustomerPortfolio withLoan(LoanSummary loan) {
+        List<LoanSummary> updated = new ArrayList<>(loans.size() + 1);
+        boolean replaced = false;
+        for (LoanSummary existing : loans) {
+            if (existing.getLoanId().equals(loan.getLoanId())) {
+                if (existing.getVersion() >= loan.getVersion()) {
+                    return this;
+                }
+                updated.add(loan);
+                replaced = true;
+            } else {
+                updated.add(existing);
+            }
+        }
+        if (!replaced) {
+            updated.add(loan);
+            updated.sort(LISTING_ORDER);
+        }
+        return new CustomerPortfolio(customerId, availableCredit, customerVersion, updated);
+    }
+
+    public CustomerPortfolio withCredit(BigDecimal availableCredit, Long customerVersion) {
+        if (this.customerVersion >= customerVersion) {
+            return this;
+        }
+        return new CustomerPortfolio(customerId, availableCredit, customerVersion, loans);
+    }
+
+    // Grows with every committed change to the loans: rows are never deleted and every update bumps a row version
+    public long loansVersion() {
+        long version = loans.size();
+        for (LoanSummary loan : loans) {
+            version += loan.getVersion();
+        }
+        return version;
+    }
+}
@@ -0,0 +1,161 @@
+package com.ing.loan_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ing.loan_service.exception.IdempotencyKeyReuseException;
+import com.ing.loan_service.exception.InvalidIdempotencyKeyException;
+import com.ing.loan_service.model.IdempotencyRecord;
+import com.ing.loan_service.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+// Idempotency-Key support for write endpoints. A bounded in-memory store answers retries without a query; behind
+// it the idempotency_records table keeps every response for the TTL, so replays survive eviction and restarts.
+// A first execution inserts its record before running and commits it together with the request's own writes.
+@Service
+public class IdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, StoredResponse> responses;
+    // the only retry layer for optimistic lock failures: every attempt runs the request in a transaction of its own
+    private final RetryTemplate retryTemplate = RetryTemplate.builder()
+            .maxAttempts(3)
+            .exponentialBackoff(10, 2, 100)
+            .retryOn(OptimisticLockingFailureException.class)
+            .build();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl}") Duration ttl,
+                              @Value("${idempotency.cache.maximum-size}") long maximumSize) {
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    // Runs the action once per (caller, key); later calls with the same key and request get its response back.
+    // Without a key the action simply runs, retried on conflicts like a keyed one.
+    public <T> IdempotentResponse<T> execute(String caller, String key, Object request, Class<T> responseType,
+                                             Supplier<T> action) {
+        if (key == null) {
+            return new IdempotentResponse<>(retrying(action), false);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = caller + ":" + key;
+        String requestHash = hash(request);
+
+        IdempotentResponse<T> stored = replay(id, requestHash, responseType);
+        if (stored != null) {
+            return stored;
+        }
+        try {
+            T body = retrying(() -> transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                recordRepository.deleteExpired(id, now);
+                // a concurrent duplicate blocks here on the primary key until the first one commits, then fails
+                IdempotencyRecord record = recordRepository.saveAndFlush(
+                        new IdempotencyRecord(id, requestHash, now, now.plus(ttl)));
+                T result = action.get();
+                record.setResponse(toJson(result));
+                return result;
+            }));
+            responses.put(id, new StoredResponse(requestHash, body));
+            return new IdempotentResponse<>(body, false);
+        } catch (DataIntegrityViolationException e) {
+            // lost the race to a concurrent request with the same key, which committed first
+            IdempotentResponse<T> winner = replay(id, requestHash, responseType);
+            if (winner == null) {
+                throw e;
+            }
+            return winner;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.compaction-interval}")
+    public void compact() {
+        transactionTemplate.executeWithoutResult(status -> recordRepository.deleteAllExpired(LocalDateTime.now()));
+    }
+
+    // An optimistic lock failure marks the surrounding transaction rollback-only, so another attempt only helps in a
+    // transaction of its own. Called inside someone else's transaction, the conflict is left to that caller.
+    private <T> T retrying(Supplier<T> attempt) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return attempt.get();
+        }
+        return retryTemplate.execute(context -> attempt.get());
+    }
+
+    private <T> IdempotentResponse<T> replay(String id, String requestHash, Class<T> responseType) {
+        StoredResponse stored = responses.getIfPresent(id);
+        if (stored == null) {
+            stored = recordRepository.findLive(id, LocalDateTime.now())
+                    .map(record -> new StoredResponse(record.getRequestHash(), fromJson(record.getResponse(), responseType)))
+                    .orElse(null);
+            if (stored == null) {
+                return null;
+            }
+            responses.put(id, stored);
+        }
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReuseException("Idempotency-Key was already used for a different request");
+        }
+        return new IdempotentResponse<>(responseType.cast(stored.body()), true);
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash the request", e);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store the response", e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(json, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read the stored response", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, Object body) {
+    }
+}
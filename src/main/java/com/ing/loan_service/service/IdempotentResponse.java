@@ -0,0 +1,5 @@
+package com.ing.loan_service.service;
+
+// Response of an idempotent request; replayed when it was served from a stored earlier execution
+public record IdempotentResponse<T>(T body, boolean replayed) {
+}
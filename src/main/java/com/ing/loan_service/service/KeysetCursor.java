@@ -0,0 +1,44 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position of the last row of a page: its sort key plus id as tie breaker. Clients only see the encoded token.
+public record KeysetCursor(String sortKey, long id) {
+
+    public static String encode(Object sortKey, long id) {
+        String raw = sortKey + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+
+    public LocalDateTime sortKeyAsDateTime() {
+        try {
+            return LocalDateTime.parse(sortKey);
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+
+    public LocalDate sortKeyAsDate() {
+        try {
+            return LocalDate.parse(sortKey);
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+}
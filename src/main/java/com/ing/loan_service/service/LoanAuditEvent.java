@@ -0,0 +1,9 @@
+package com.ing.loan_service.service;
+
+import java.math.BigDecimal;
+
+// Published by LoanService for every loan state change; the audit journal picks it up once the transaction commits.
+// amount is the loan total for LOAN_CREATED, the amount paid for LOAN_PAID and the released credit for LOAN_CLOSED.
+public record LoanAuditEvent(AuditEventType type, Long loanId, Long customerId, BigDecimal amount,
+                             int installments) {
+}
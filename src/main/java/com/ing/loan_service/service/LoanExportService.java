@@ -0,0 +1,51 @@
+package com.ing.loan_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ing.loan_service.dto.InstallmentExportRow;
+import com.ing.loan_service.repository.LoanInstallmentRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class LoanExportService {
+
+    private final LoanInstallmentRepository installmentRepository;
+    private final ObjectMapper objectMapper;
+
+    public LoanExportService(LoanInstallmentRepository installmentRepository, ObjectMapper objectMapper) {
+        this.installmentRepository = installmentRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Writes one JSON object per installment and line; rows are read from a cursor and written out one by one,
+    // so memory use does not depend on the number of installments. A null customerId exports the whole portfolio.
+    // Rows are not flushed one by one, the generator and the response buffer batch them into larger writes.
+    @Transactional(readOnly = true)
+    public void exportInstallments(Long customerId, OutputStream out) throws IOException {
+        try (Stream<InstallmentExportRow> rows = customerId == null
+                ? installmentRepository.streamAllForExport()
+                : installmentRepository.streamForExport(customerId);
+             SequenceWriter writer = objectMapper.writer()
+                     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                     .withRootValueSeparator("\n")
+                     .writeValues(out)) {
+            Iterator<InstallmentExportRow> iterator = rows.iterator();
+            if (!iterator.hasNext()) {
+                return;
+            }
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+            }
+            // the trailing newline goes straight to the stream, after the rows still buffered in the generator
+            writer.flush();
+            out.write('\n');
+        }
+    }
+}
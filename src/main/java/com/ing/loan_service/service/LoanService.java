@@ -1,122 +1,180 @@
 package com.ing.loan_service.service;
 
 import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.dto.CursorPage;
 import com.ing.loan_service.dto.InstallmentsResponse;
 import com.ing.loan_service.dto.LoanResponse;
+import com.ing.loan_service.dto.LoanSummary;
 import com.ing.loan_service.dto.PaymentResult;
 import com.ing.loan_service.exception.InsufficientCreditException;
+import com.ing.loan_service.exception.InsufficientPaymentException;
 import com.ing.loan_service.exception.PaymentRestrictionException;
 import com.ing.loan_service.model.Customer;
 import com.ing.loan_service.model.Loan;
 import com.ing.loan_service.model.LoanInstallment;
+import com.ing.loan_service.model.Money;
 import com.ing.loan_service.repository.CustomerRepository;
 import com.ing.loan_service.repository.LoanInstallmentRepository;
 import com.ing.loan_service.repository.LoanRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 @Service
+@Timed("loan.service")
 public class LoanService {
 
+    // installments can be paid at most this many months ahead of their due date
+    static final int PAYMENT_WINDOW_MONTHS = 3;
+
     private final LoanRepository loanRepository;
     private final CustomerRepository customerRepository;
     private final LoanInstallmentRepository installmentRepository;
+    private final ScheduleTemplateCache scheduleTemplates;
+    private final PortfolioReadModel portfolioReadModel;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public LoanService(LoanRepository loanRepository, CustomerRepository customerRepository, LoanInstallmentRepository installmentRepository) {
+    public LoanService(LoanRepository loanRepository, CustomerRepository customerRepository,
+                       LoanInstallmentRepository installmentRepository, ScheduleTemplateCache scheduleTemplates,
+                       PortfolioReadModel portfolioReadModel, ApplicationEventPublisher eventPublisher) {
         this.loanRepository = loanRepository;
         this.customerRepository = customerRepository;
         this.installmentRepository = installmentRepository;
+        this.scheduleTemplates = scheduleTemplates;
+        this.portfolioReadModel = portfolioReadModel;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public LoanResponse createLoan(CreateLoanRequest request) {
-        // Validate customer exists
-        Customer customer = customerRepository.findById(request.getCustomerId()).orElseThrow(() -> new RuntimeException("Customer not found"));
-
         // Calculate total loan amount with interest
         BigDecimal totalAmount = request.getAmount()
                 .multiply(BigDecimal.valueOf(1 + request.getInterestRate()))
                 .setScale(2, RoundingMode.HALF_UP);
 
-        // Check credit limit
-        if (customer.getAvailableCredit().compareTo(totalAmount) < 0) {
+        // Reserve credit with a conditional UPDATE, concurrent originations can not overrun the limit
+        if (customerRepository.reserveCredit(request.getCustomerId(), totalAmount) == 0) {
+            // Validate customer exists
+            if (!customerRepository.existsById(request.getCustomerId())) {
+                throw new RuntimeException("Customer not found");
+            }
             throw new InsufficientCreditException("Insufficient credit limit");
         }
+        Customer customer = customerRepository.getReferenceById(request.getCustomerId());
+
+        // Due dates and the installment split come from the month's schedule template
+        ScheduleTemplate schedule = scheduleTemplates.get(LocalDate.now(), request.getNumberOfInstallmentsAsInt());
+        Money total = Money.of(totalAmount);
 
         // Create loan WITHOUT installments first
         Loan loan = new Loan(customer, totalAmount, request.getNumberOfInstallmentsAsInt());
+        loan.setNextDueDate(schedule.dueDates().get(0));
         loan = loanRepository.save(loan);
 
-        // Calculate installment amount
-        BigDecimal installmentAmount = totalAmount
-                .divide(BigDecimal.valueOf(request.getNumberOfInstallmentsAsInt()), 2, RoundingMode.HALF_UP);
-
-        List<LoanInstallment> installments = new ArrayList<>();
-        LocalDate currentDate = LocalDate.now();
-
-        for (int i = 1; i <= request.getNumberOfInstallmentsAsInt(); i++) {
-            LocalDate dueDate = currentDate.plusMonths(i).withDayOfMonth(1);
-            LoanInstallment installment = new LoanInstallment(installmentAmount, dueDate);
+        List<LoanInstallment> installments = new ArrayList<>(schedule.size());
+        for (int i = 0; i < schedule.size(); i++) {
+            LoanInstallment installment = new LoanInstallment(schedule.installmentAmount(total, i).toBigDecimal(),
+                    schedule.dueDates().get(i));
             installment.setLoan(loan); // Set the loan reference
             installments.add(installment);
         }
 
-
         // Save installments
         installmentRepository.saveAll(installments);
-
-        // Update customer's used credit
-        customer.setUsedCreditLimit(customer.getUsedCreditLimit().add(totalAmount));
-        customerRepository.save(customer);
+        eventPublisher.publishEvent(new PortfolioChangedEvent(request.getCustomerId(), loan.getId()));
+        eventPublisher.publishEvent(new LoanAuditEvent(AuditEventType.LOAN_CREATED, loan.getId(),
+                request.getCustomerId(), totalAmount, loan.getNumberOfInstallment()));
 
         return LoanResponse.builder().
-                customerId(customer.getId()).
+                customerId(request.getCustomerId()).
                 loadId(loan.getId()).
                 loanAmount(loan.getLoanAmount()).
                 numberOfInstallment(loan.getNumberOfInstallment()).
                 build();
     }
 
+    // Version of the customer's loan listing, from the in-memory portfolio; empty for an unknown customer
+    public Optional<Long> findListingVersion(Long customerId) {
+        return Optional.ofNullable(portfolioReadModel.get(customerId)).map(CustomerPortfolio::loansVersion);
+    }
+
+    // Version of the loan's installment listing, read without loading any installment
+    public Optional<Long> findInstallmentsVersion(Long loanId) {
+        return loanRepository.findVersionById(loanId);
+    }
+
     @Transactional(readOnly = true)
-    public List<LoanResponse> listLoans(Long customerId, Boolean isPaid, Integer numberOfInstallments) {
-        List<Loan> customerLoans = loanRepository.findLoansWithFilters(customerId, isPaid, numberOfInstallments);
+    public CursorPage<LoanResponse> listLoans(Long customerId, Boolean isPaid, Integer numberOfInstallments,
+                                              String cursor, int limit) {
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor);
+        LocalDateTime afterCreateDate = after == null ? null : after.sortKeyAsDateTime();
+        // served from the in-memory portfolio, already in (createDate, id) order;
+        // one row past the limit tells whether another page follows
+        CustomerPortfolio portfolio = portfolioReadModel.get(customerId);
+        List<LoanSummary> customerLoans = portfolio == null ? List.of() : portfolio.loans().stream()
+                .filter(loan -> isPaid == null || isPaid.equals(loan.getIsPaid()))
+                .filter(loan -> numberOfInstallments == null || numberOfInstallments.equals(loan.getNumberOfInstallment()))
+                .filter(loan -> after == null || loan.getCreateDate().isAfter(afterCreateDate)
+                        || (loan.getCreateDate().isEqual(afterCreateDate) && loan.getLoanId() > after.id()))
+                .limit(limit + 1)
+                .toList();
         List<LoanResponse> loans = new ArrayList<>();
         if (customerLoans.isEmpty()) {
-            loans.add(LoanResponse.builder().
-                    customerId(customerId).
-                    status("Customer does not have loan!").
-                    build());
-            return loans;
+            if (after == null) {
+                loans.add(LoanResponse.builder().
+                        customerId(customerId).
+                        status("Customer does not have loan!").
+                        build());
+            }
+            return new CursorPage<>(loans, null);
+        }
+        String nextCursor = null;
+        if (customerLoans.size() > limit) {
+            customerLoans = customerLoans.subList(0, limit);
+            LoanSummary last = customerLoans.get(limit - 1);
+            nextCursor = KeysetCursor.encode(last.getCreateDate(), last.getLoanId());
         }
         customerLoans.forEach(loan -> {
-            List<LoanInstallment> installments = loan.getInstallments();
-            long paidInstallmentCount = installments.isEmpty() ? loan.getNumberOfInstallment() : loan.getInstallments().stream().filter(LoanInstallment::getIsPaid).count();
             LoanResponse loanResponse = LoanResponse.builder().
                     customerId(customerId).
-                    loadId(loan.getId()).
+                    loadId(loan.getLoanId()).
                     loanAmount(loan.getLoanAmount()).
                     numberOfInstallment(loan.getNumberOfInstallment()).
-                    numberOfPaidInstallment(paidInstallmentCount).
-                    status(paidInstallmentCount != loan.getNumberOfInstallment() ? "Not paid installment is available" : "Loan is paid!").
+                    numberOfPaidInstallment(loan.getPaidInstallmentCount().longValue()).
+                    remainingAmount(loan.getRemainingAmount()).
+                    nextDueDate(loan.getNextDueDate()).
+                    status(loan.getIsPaid() ? "Loan is paid!" : "Not paid installment is available").
                     build();
             loans.add(loanResponse);
         });
-        return loans;
+        return new CursorPage<>(loans, nextCursor);
     }
 
     @Transactional(readOnly = true)
-    public List<InstallmentsResponse> listInstallments(Long loanId) {
-        List<LoanInstallment> loanInstallments = installmentRepository.findByLoanIdOrderByDueDate(loanId);
+    public CursorPage<InstallmentsResponse> listInstallments(Long loanId, String cursor, int limit) {
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor);
+        List<LoanInstallment> loanInstallments = installmentRepository.findPageByLoanId(loanId,
+                after == null ? null : after.sortKeyAsDate(), after == null ? null : after.id(),
+                PageRequest.of(0, limit + 1));
         if (loanInstallments.isEmpty()) {
-            return Collections.emptyList();
+            return new CursorPage<>(Collections.emptyList(), null);
+        }
+        String nextCursor = null;
+        if (loanInstallments.size() > limit) {
+            loanInstallments = loanInstallments.subList(0, limit);
+            LoanInstallment last = loanInstallments.get(limit - 1);
+            nextCursor = KeysetCursor.encode(last.getDueDate(), last.getId());
         }
         List<InstallmentsResponse> installments = new ArrayList<>();
         loanInstallments.forEach(loanInstallment -> {
@@ -129,9 +187,11 @@ public class LoanService {
                     .paid(loanInstallment.getIsPaid())
                     .build());
         });
-        return installments;
+        return new CursorPage<>(installments, nextCursor);
     }
 
+    // Concurrent payments on the same loan collide on the installment versions. The loser's transaction is rolled back
+    // and retried from scratch by the caller (IdempotencyService), never in here where it could join a doomed one.
     @Transactional
     public PaymentResult payLoan(Long loanId, BigDecimal amount) {
         // Validate loan exists
@@ -140,12 +200,28 @@ public class LoanService {
         // Get unpaid installments ordered by due date
         List<LoanInstallment> unpaidInstallments = installmentRepository.findUnpaidByLoanIdOrderByDueDate(loanId);
 
+        // Settlement only mutates the managed installments in memory; no per-row save, the flush on commit
+        // writes every paid installment with one batched UPDATE (hibernate.jdbc.batch_size, versions still checked)
+        List<LoanInstallment> paidInstallments = settleInstallments(unpaidInstallments, amount, LocalDate.now());
+        recordPayment(loan, paidInstallments, unpaidInstallments);
+
+        // Check if loan is fully paid
+        boolean loanFullyPaid = loan.getNextDueDate() == null;
+
+        if (loanFullyPaid) {
+            closeLoan(loan);
+        }
+
+        return new PaymentResult(paidInstallments.size(), totalPaid(paidInstallments), loanFullyPaid);
+    }
+
+    // Pays the oldest payable installments wholly while the amount lasts; nothing is modified if none can be paid
+    List<LoanInstallment> settleInstallments(List<LoanInstallment> unpaidInstallments, BigDecimal amount, LocalDate today) {
         if (unpaidInstallments.isEmpty()) {
             throw new RuntimeException("No unpaid installments found");
         }
 
-        LocalDate today = LocalDate.now();
-        LocalDate maxPayableDate = today.plusMonths(3);
+        LocalDate maxPayableDate = today.plusMonths(PAYMENT_WINDOW_MONTHS);
 
         // Filter installments that can be paid (within 3 months)
         List<LoanInstallment> payableInstallments = unpaidInstallments.stream()
@@ -156,67 +232,75 @@ public class LoanService {
             throw new PaymentRestrictionException("No installments can be paid within 3 months period");
         }
 
-        BigDecimal remainingAmount = amount;
-        int installmentsPaid = 0;
-        BigDecimal totalSpent = BigDecimal.ZERO;
+        Money remainingAmount = Money.of(amount);
+        List<LoanInstallment> paidInstallments = new ArrayList<>();
 
         for (LoanInstallment installment : payableInstallments) {
-            BigDecimal effectiveAmount = calculateEffectiveAmount(installment, today);
+            Money effectiveAmount = calculateEffectiveAmount(installment, today);
 
-            if (remainingAmount.compareTo(effectiveAmount) >= 0) {
+            if (!remainingAmount.isLessThan(effectiveAmount)) {
                 // Pay this installment
-                installment.setPaidAmount(effectiveAmount);
+                installment.setPaidAmount(effectiveAmount.toBigDecimal());
                 installment.setPaymentDate(today);
                 installment.setIsPaid(true);
 
-                installmentRepository.save(installment);
-
-                remainingAmount = remainingAmount.subtract(effectiveAmount);
-                totalSpent = totalSpent.add(effectiveAmount);
-                installmentsPaid++;
+                remainingAmount = remainingAmount.minus(effectiveAmount);
+                paidInstallments.add(installment);
             } else {
                 break; // Cannot pay this installment wholly
             }
         }
 
-        if (installmentsPaid == 0) {
-            throw new RuntimeException("Amount is insufficient to pay any installment");
+        if (paidInstallments.isEmpty()) {
+            throw new InsufficientPaymentException("Amount is insufficient to pay any installment");
         }
+        return paidInstallments;
+    }
 
-        // Check if loan is fully paid
-        boolean loanFullyPaid = installmentRepository.findUnpaidByLoanIdOrderByDueDate(loanId).isEmpty();
+    // Moves the loan's balance counters past the installments just paid, which are the oldest unpaid ones
+    void recordPayment(Loan loan, List<LoanInstallment> paidInstallments, List<LoanInstallment> unpaidInstallments) {
+        Money paidAmount = Money.ZERO;
+        for (LoanInstallment installment : paidInstallments) {
+            paidAmount = paidAmount.plus(Money.of(installment.getAmount()));
+        }
+        loan.setPaidInstallmentCount(loan.getPaidInstallmentCount() + paidInstallments.size());
+        loan.setRemainingAmount(Money.of(loan.getRemainingAmount()).minus(paidAmount).toBigDecimal());
+        loan.setNextDueDate(paidInstallments.size() < unpaidInstallments.size()
+                ? unpaidInstallments.get(paidInstallments.size()).getDueDate()
+                : null);
+        eventPublisher.publishEvent(new PortfolioChangedEvent(loan.getCustomer().getId(), loan.getId()));
+        eventPublisher.publishEvent(new LoanAuditEvent(AuditEventType.LOAN_PAID, loan.getId(),
+                loan.getCustomer().getId(), totalPaid(paidInstallments), paidInstallments.size()));
+    }
 
-        if (loanFullyPaid) {
-            loan.setIsPaid(true);
-            loanRepository.save(loan);
+    void closeLoan(Loan loan) {
+        loan.setIsPaid(true);
+        loanRepository.save(loan);
 
-            // Update customer's used credit limit
-            Customer customer = loan.getCustomer();
-            customer.setUsedCreditLimit(customer.getUsedCreditLimit().subtract(loan.getLoanAmount()));
-            customerRepository.save(customer);
+        // Update customer's used credit limit
+        customerRepository.releaseCredit(loan.getCustomer().getId(), loan.getLoanAmount());
+        eventPublisher.publishEvent(new LoanAuditEvent(AuditEventType.LOAN_CLOSED, loan.getId(),
+                loan.getCustomer().getId(), loan.getLoanAmount(), loan.getNumberOfInstallment()));
+    }
+
+    BigDecimal totalPaid(List<LoanInstallment> paidInstallments) {
+        Money total = Money.ZERO;
+        for (LoanInstallment installment : paidInstallments) {
+            total = total.plus(Money.of(installment.getPaidAmount()));
         }
+        return total.toBigDecimal();
+    }
 
-        return new PaymentResult(installmentsPaid, totalSpent, loanFullyPaid);
+    Money calculateEffectiveAmount(LoanInstallment installment, LocalDate paymentDate) {
+        return effectiveAmount(Money.of(installment.getAmount()), installment.getDueDate(), paymentDate);
     }
 
-    private BigDecimal calculateEffectiveAmount(LoanInstallment installment, LocalDate paymentDate) {
-        LocalDate dueDate = installment.getDueDate();
-        BigDecimal baseAmount = installment.getAmount();
-
-        long daysDifference = ChronoUnit.DAYS.between(dueDate, paymentDate);
-
-        if (daysDifference < 0) {
-            // Early payment - discount
-            BigDecimal discount = baseAmount
-                    .multiply(BigDecimal.valueOf(0.001))
-                    .multiply(BigDecimal.valueOf(Math.abs(daysDifference)));
-            return baseAmount.subtract(discount).setScale(2, RoundingMode.HALF_UP);
-        } else if (daysDifference > 0) {
-            // Late payment - penalty
-            BigDecimal penalty = baseAmount
-                    .multiply(BigDecimal.valueOf(0.001))
-                    .multiply(BigDecimal.valueOf(daysDifference));
-            return baseAmount.add(penalty).setScale(2, RoundingMode.HALF_UP);
+    static Money effectiveAmount(Money baseAmount, LocalDate dueDate, LocalDate paymentDate) {
+        long daysDifference = paymentDate.toEpochDay() - dueDate.toEpochDay();
+
+        // 0.1% of the installment per day: early payment is discounted, late payment is penalised
+        if (daysDifference != 0) {
+            return baseAmount.multiply(1000 + daysDifference, 1000);
         } else {
             // On time payment
             return baseAmount;
@@ -0,0 +1,22 @@
+package com.ing.loan_service.service;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+// Spring Security user that also carries the customer id, so it can be written into the JWT
+public class LoanUserDetails extends User {
+
+    private final Long customerId;
+
+    public LoanUserDetails(String username, String password, Collection<? extends GrantedAuthority> authorities,
+                           Long customerId) {
+        super(username, password, authorities);
+        this.customerId = customerId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ing.loan_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ing.loan_service.config.JwtPrincipal;
+import com.ing.loan_service.repository.LoanRepository;
+import com.ing.loan_service.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Service
+public class OwnershipService {
+
+    private final UserRepository userRepository;
+    private final LoanRepository loanRepository;
+
+    // username -> customer id, only needed for principals that do not carry the customerId claim
+    private final Cache<String, Optional<Long>> customerIds;
+
+    // only positive answers are cached: a loan never changes owner, but a loan id that is
+    // not owned yet may still be created for this customer later
+    private final Cache<LoanOwnership, Boolean> ownedLoans;
+
+    public OwnershipService(UserRepository userRepository, LoanRepository loanRepository,
+                            @Value("${ownership-cache.maximum-size}") long maximumSize,
+                            @Value("${ownership-cache.expire-after-write}") Duration expireAfterWrite) {
+        this.userRepository = userRepository;
+        this.loanRepository = loanRepository;
+        this.customerIds = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.ownedLoans = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public boolean isCustomer(Authentication authentication, Long customerId) {
+        return customerId != null && getCustomerId(authentication).map(customerId::equals).orElse(false);
+    }
+
+    public boolean ownsLoan(Authentication authentication, Long loanId) {
+        Optional<Long> customerId = getCustomerId(authentication);
+        if (customerId.isEmpty()) {
+            return false;
+        }
+
+        LoanOwnership key = new LoanOwnership(customerId.get(), loanId);
+        if (ownedLoans.getIfPresent(key) != null) {
+            return true;
+        }
+        if (!loanRepository.existsByIdAndCustomerId(loanId, customerId.get())) {
+            return false;
+        }
+        ownedLoans.put(key, Boolean.TRUE);
+        return true;
+    }
+
+    private Optional<Long> getCustomerId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return Optional.ofNullable(principal.customerId());
+        }
+        return customerIds.get(authentication.getName(), userRepository::findCustomerIdByUsername);
+    }
+
+    private record LoanOwnership(Long customerId, Long loanId) {
+    }
+}
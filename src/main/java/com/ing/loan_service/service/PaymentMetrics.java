@@ -0,0 +1,46 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.exception.InsufficientPaymentException;
+import com.ing.loan_service.exception.PaymentRestrictionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+// loan.payments{outcome}: paid, insufficient (amount below the next installment), restricted (nothing inside the
+// payment window) or failed. Callers count once the outcome is final, i.e. outside any retried transaction.
+@Component
+public class PaymentMetrics {
+
+    private final Counter paid;
+    private final Counter insufficient;
+    private final Counter restricted;
+    private final Counter failed;
+
+    public PaymentMetrics(MeterRegistry registry) {
+        this.paid = counter(registry, "paid");
+        this.insufficient = counter(registry, "insufficient");
+        this.restricted = counter(registry, "restricted");
+        this.failed = counter(registry, "failed");
+    }
+
+    public void paid() {
+        paid.increment();
+    }
+
+    public void rejected(RuntimeException e) {
+        if (e instanceof InsufficientPaymentException) {
+            insufficient.increment();
+        } else if (e instanceof PaymentRestrictionException) {
+            restricted.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String outcome) {
+        return Counter.builder("loan.payments")
+                .description("Payments by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,112 @@
+package com.ing.loan_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ing.loan_service.dto.InstallmentQuote;
+import com.ing.loan_service.dto.LoanSummary;
+import com.ing.loan_service.dto.PaymentQuote;
+import com.ing.loan_service.model.LoanInstallment;
+import com.ing.loan_service.model.Money;
+import com.ing.loan_service.repository.LoanInstallmentRepository;
+import com.ing.loan_service.repository.LoanRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Read-only payment quotes priced with the same window and effective amount rules as payLoan. A quote only
+// changes with the calendar day or a payment, so it is cached per loan for the day it was priced on and dropped
+// once a payment on the loan commits.
+@Service
+public class PaymentQuoteService {
+
+    private final LoanRepository loanRepository;
+    private final LoanInstallmentRepository installmentRepository;
+    private final Cache<Long, PaymentQuote> quotes;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PaymentQuoteService(LoanRepository loanRepository, LoanInstallmentRepository installmentRepository,
+                               @Value("${payment-quote-cache.maximum-size}") long maximumSize) {
+        this.loanRepository = loanRepository;
+        this.installmentRepository = installmentRepository;
+        this.quotes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public PaymentQuote quote(Long loanId) {
+        LocalDate today = LocalDate.now();
+        PaymentQuote cached = quotes.getIfPresent(loanId);
+        if (cached != null && cached.getQuoteDate().equals(today)) {
+            return cached;
+        }
+        // priced outside the cache so no cache lock is held across the reads; a payment committing meanwhile bumps
+        // the generation, and a quote that may predate it is dropped again right after it was stored
+        long generation = invalidations.get();
+        PaymentQuote priced = price(loanId, today);
+        quotes.put(loanId, priced);
+        if (invalidations.get() != generation) {
+            quotes.invalidate(loanId);
+        }
+        return priced;
+    }
+
+    // Turns a payment away before payLoan's write transaction only when a cached quote proves there is nothing left
+    // to pay: installments are never unpaid again, so that can not be stale. Anything else, including the amount,
+    // is left to payLoan against the current rows.
+    public void checkPayable(Long loanId) {
+        PaymentQuote cached = quotes.getIfPresent(loanId);
+        if (cached != null && (cached.isLoanPaid() || cached.getUnpaidInstallments() == 0)) {
+            throw new RuntimeException("No unpaid installments found");
+        }
+    }
+
+    @TransactionalEventListener
+    public void onLoanChanged(PortfolioChangedEvent event) {
+        invalidations.incrementAndGet();
+        quotes.invalidate(event.loanId());
+    }
+
+    private PaymentQuote price(Long loanId, LocalDate today) {
+        LoanSummary loan = loanRepository.findSummaryById(loanId)
+                .orElseThrow(() -> new RuntimeException("Loan not found"));
+        List<LoanInstallment> unpaidInstallments = installmentRepository.findUnpaidByLoanIdOrderByDueDate(loanId);
+        return price(loan, unpaidInstallments, today);
+    }
+
+    static PaymentQuote price(LoanSummary loan, List<LoanInstallment> unpaidInstallments, LocalDate today) {
+        LocalDate maxPayableDate = today.plusMonths(LoanService.PAYMENT_WINDOW_MONTHS);
+        List<InstallmentQuote> payableInstallments = new ArrayList<>();
+        Money payoff = Money.ZERO;
+        for (LoanInstallment installment : unpaidInstallments) {
+            Money amount = Money.of(installment.getAmount());
+            Money effectiveAmount = LoanService.effectiveAmount(amount, installment.getDueDate(), today);
+            payoff = payoff.plus(effectiveAmount);
+            if (!installment.getDueDate().isAfter(maxPayableDate)) {
+                payableInstallments.add(InstallmentQuote.builder()
+                        .installmentId(installment.getId())
+                        .dueDate(installment.getDueDate())
+                        .amount(installment.getAmount())
+                        .effectiveAmount(effectiveAmount.toBigDecimal())
+                        .cumulativeAmount(payoff.toBigDecimal())
+                        .build());
+            }
+        }
+        return PaymentQuote.builder()
+                .loanId(loan.getLoanId())
+                .quoteDate(today)
+                .loanPaid(loan.getIsPaid())
+                .unpaidInstallments(unpaidInstallments.size())
+                .payableInstallments(List.copyOf(payableInstallments))
+                .payoffAmount(payoff.toBigDecimal())
+                .payoffAvailable(!unpaidInstallments.isEmpty()
+                        && payableInstallments.size() == unpaidInstallments.size())
+                .build();
+    }
+}
@@ -0,0 +1,5 @@
+package com.ing.loan_service.service;
+
+// Published by LoanService whenever a loan of the customer or their credit usage changes
+public record PortfolioChangedEvent(Long customerId, Long loanId) {
+}
@@ -0,0 +1,138 @@
+package com.ing.loan_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ing.loan_service.dto.CustomerCredit;
+import com.ing.loan_service.dto.LoanSummary;
+import com.ing.loan_service.dto.PortfolioCheckResult;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.repository.CustomerRepository;
+import com.ing.loan_service.repository.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Per-customer portfolio projection serving the loan listing from memory. Entries are loaded on first read,
+// patched after every committed loan change and evicted by total loan count once the weight bound is hit.
+@Component
+public class PortfolioReadModel {
+
+    private static final Logger log = LoggerFactory.getLogger(PortfolioReadModel.class);
+
+    private final LoanRepository loanRepository;
+    private final CustomerRepository customerRepository;
+    private final Cache<Long, CustomerPortfolio> portfolios;
+
+    public PortfolioReadModel(LoanRepository loanRepository, CustomerRepository customerRepository,
+                              @Value("${portfolio-cache.maximum-weight}") long maximumWeight) {
+        this.loanRepository = loanRepository;
+        this.customerRepository = customerRepository;
+        this.portfolios = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Long customerId, CustomerPortfolio portfolio) -> 1 + portfolio.loans().size())
+                .build();
+    }
+
+    // null when the customer does not exist; unknown customers are not cached
+    @Transactional(readOnly = true)
+    public CustomerPortfolio get(Long customerId) {
+        return portfolios.get(customerId, this::load);
+    }
+
+    // Runs after the writing transaction committed, on the writer's still bound connection: asking the pool for a
+    // second one here deadlocks once every connection is held by a writer waiting in this listener. Both reads are
+    // projections, so they see the committed rows and not the writer's persistence context (bulk credit updates
+    // bypass it). computeIfPresent waits for a load of the same customer that is still in flight, so a snapshot
+    // read before the commit is patched rather than kept. The write has already committed, so a failed refresh must
+    // not reach the caller: the entry is dropped instead and the next read loads it again.
+    @TransactionalEventListener
+    public void onPortfolioChanged(PortfolioChangedEvent event) {
+        try {
+            portfolios.asMap().computeIfPresent(event.customerId(), (customerId, portfolio) -> {
+                LoanSummary loan = loanRepository.findSummaryById(event.loanId()).orElse(null);
+                CustomerCredit credit = customerRepository.findCreditById(customerId).orElse(null);
+                if (loan == null || credit == null) {
+                    return null;
+                }
+                return portfolio.withLoan(loan).withCredit(credit.getAvailableCredit(), credit.getVersion());
+            });
+        } catch (RuntimeException e) {
+            portfolios.invalidate(event.customerId());
+            log.error("Could not refresh the portfolio of customer {} after loan {} changed, evicted it instead",
+                    event.customerId(), event.loanId(), e);
+        }
+    }
+
+    // Compares the cached entry with the database without touching the cache
+    @Transactional(readOnly = true)
+    public PortfolioCheckResult check(Long customerId) {
+        CustomerPortfolio cached = portfolios.getIfPresent(customerId);
+        if (cached == null) {
+            return new PortfolioCheckResult(customerId, false, true, List.of());
+        }
+        List<String> differences = differences(cached, load(customerId));
+        return new PortfolioCheckResult(customerId, true, differences.isEmpty(), differences);
+    }
+
+    // Replaces a drifted entry with a fresh load from the database
+    @Transactional(readOnly = true)
+    public PortfolioCheckResult rebuild(Long customerId) {
+        CustomerPortfolio fresh = load(customerId);
+        if (fresh == null) {
+            portfolios.invalidate(customerId);
+        } else {
+            portfolios.put(customerId, fresh);
+        }
+        return check(customerId);
+    }
+
+    // Drops every entry, they are reloaded lazily on the next read
+    public void rebuildAll() {
+        portfolios.invalidateAll();
+    }
+
+    private CustomerPortfolio load(Long customerId) {
+        Customer customer = customerRepository.findById(customerId).orElse(null);
+        if (customer == null) {
+            return null;
+        }
+        List<LoanSummary> loans = loanRepository.findLoansWithFilters(customerId, null, null, null, null,
+                Pageable.unpaged());
+        return new CustomerPortfolio(customerId, customer.getCreditLimit().subtract(customer.getUsedCreditLimit()),
+                customer.getVersion(), loans);
+    }
+
+    private List<String> differences(CustomerPortfolio cached, CustomerPortfolio fresh) {
+        List<String> differences = new ArrayList<>();
+        if (fresh == null) {
+            differences.add("customer no longer exists");
+            return differences;
+        }
+        if (cached.availableCredit().compareTo(fresh.availableCredit()) != 0) {
+            differences.add("availableCredit: cached " + cached.availableCredit() + ", database " + fresh.availableCredit());
+        }
+        Map<Long, LoanSummary> cachedLoans = cached.loans().stream()
+                .collect(Collectors.toMap(LoanSummary::getLoanId, Function.identity()));
+        for (LoanSummary loan : fresh.loans()) {
+            LoanSummary cachedLoan = cachedLoans.remove(loan.getLoanId());
+            if (cachedLoan == null) {
+                differences.add("loan " + loan.getLoanId() + ": missing from cache");
+            } else if (!Objects.equals(cachedLoan, loan)) {
+                differences.add("loan " + loan.getLoanId() + ": cached " + cachedLoan + ", database " + loan);
+            }
+        }
+        cachedLoans.keySet().forEach(loanId -> differences.add("loan " + loanId + ": not in database"));
+        return differences;
+    }
+}
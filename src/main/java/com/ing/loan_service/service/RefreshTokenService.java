@@ -0,0 +1,85 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.exception.InvalidRefreshTokenException;
+import com.ing.loan_service.model.RefreshToken;
+import com.ing.loan_service.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+// Long-lived opaque refresh tokens, so clients renew their access token without sending the password again and
+// without a bcrypt check. Only a SHA-256 of each token is stored; every redemption consumes the token and issues
+// a replacement, so a leaked token is good for one use at most.
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository tokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration validity;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository tokenRepository, PlatformTransactionManager transactionManager,
+                               @Value("${jwt.refresh-token.validity}") Duration validity) {
+        this.tokenRepository = tokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validity = validity;
+    }
+
+    public String issue(String username) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status ->
+                tokenRepository.save(new RefreshToken(hash(token), username, now, now.plus(validity))));
+        return token;
+    }
+
+    // Consumes the token and returns its owner together with the replacement token
+    public Rotation rotate(String token) {
+        if (token == null || token.isBlank()) {
+            throw new InvalidRefreshTokenException("Refresh token is missing");
+        }
+        String id = hash(token);
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            String username = tokenRepository.findLiveUsername(id, now)
+                    .orElseThrow(() -> new InvalidRefreshTokenException("Refresh token is invalid or expired"));
+            // a concurrent redemption of the same token deleted it first
+            if (tokenRepository.deleteLive(id, now) == 0) {
+                throw new InvalidRefreshTokenException("Refresh token was already used");
+            }
+            return new Rotation(username, issue(username));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.compaction-interval}")
+    public void compact() {
+        transactionTemplate.executeWithoutResult(status -> tokenRepository.deleteAllExpired(LocalDateTime.now()));
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rotation(String username, String refreshToken) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.ing.loan_service.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded lock-free queue for many producers and a single consumer, after Vyukov's bounded MPMC queue: every slot
+// carries a sequence number telling whose turn it is. A producer claims a slot with one CAS on the tail and
+// publishes it by advancing the slot's sequence; offer returns false instead of waiting when the ring is full.
+final class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // advanced by the consumer only, read by size()
+    private final AtomicLong head = new AtomicLong();
+
+    RingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, was " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // Safe from any thread, never blocks
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    // publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the consumer has not freed this slot from the previous lap yet
+                return false;
+            } else {
+                // another producer claimed the slot first
+                position = tail.get();
+            }
+        }
+    }
+
+    // Consumer thread only; null when nothing is published yet
+    E poll() {
+        long position = head.get();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = slots.get(index);
+        slots.lazySet(index, null);
+        // hands the slot to the producer of the next lap
+        sequences.set(index, position + mask + 1);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    // Claimed but not yet consumed slots, approximate while producers are active
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.model.Money;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+// Installment schedule shared by every loan originated in the same month with the same installment count
+public record ScheduleTemplate(YearMonth originationMonth, List<LocalDate> dueDates) {
+
+    public static ScheduleTemplate of(YearMonth originationMonth, int numberOfInstallments) {
+        LocalDate[] dueDates = new LocalDate[numberOfInstallments];
+        for (int i = 1; i <= numberOfInstallments; i++) {
+            dueDates[i - 1] = originationMonth.plusMonths(i).atDay(1);
+        }
+        return new ScheduleTemplate(originationMonth, List.of(dueDates));
+    }
+
+    public int size() {
+        return dueDates.size();
+    }
+
+    // Even split of the loan amount; the first (total % size) installments carry one extra cent,
+    // so the installments always add up to the loan amount exactly
+    public Money installmentAmount(Money total, int index) {
+        long baseCents = total.cents() / size();
+        long remainderCents = total.cents() % size();
+        return Money.ofCents(index < remainderCents ? baseCents + 1 : baseCents);
+    }
+}
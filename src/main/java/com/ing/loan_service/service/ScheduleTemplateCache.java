@@ -0,0 +1,40 @@
+package com.ing.loan_service.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Due dates only depend on the origination month, so schedules are built once per (month, installment count).
+// Templates of the previous month are dropped as soon as the first loan of a new month asks for one.
+@Component
+public class ScheduleTemplateCache {
+
+    private volatile MonthTemplates current = new MonthTemplates(YearMonth.now());
+
+    public ScheduleTemplate get(LocalDate originationDate, int numberOfInstallments) {
+        YearMonth month = YearMonth.from(originationDate);
+        MonthTemplates templates = current;
+        if (!templates.month.equals(month)) {
+            templates = new MonthTemplates(month);
+            // a request for an older month (e.g. a backdated call) must not evict the current one
+            if (month.isAfter(current.month)) {
+                current = templates;
+            }
+        }
+        return templates.byInstallmentCount.computeIfAbsent(numberOfInstallments,
+                count -> ScheduleTemplate.of(month, count));
+    }
+
+    private static final class MonthTemplates {
+
+        private final YearMonth month;
+        private final Map<Integer, ScheduleTemplate> byInstallmentCount = new ConcurrentHashMap<>();
+
+        private MonthTemplates(YearMonth month) {
+            this.month = month;
+        }
+    }
+}
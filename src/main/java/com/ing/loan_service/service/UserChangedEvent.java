@@ -0,0 +1,5 @@
+package com.ing.loan_service.service;
+
+// Published whenever a user's password, role or existence changes; cached copies of the user are dropped on commit
+public record UserChangedEvent(String username) {
+}
@@ -0,0 +1,50 @@
+package com.ing.loan_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+// Bounded, expiring cache in front of UserDetailsServiceImpl for the optional per-request user confirmation.
+// Login keeps using UserDetailsServiceImpl directly so password checks always see the current row. Every change to a
+// user publishes a UserChangedEvent that evicts the entry once committed, so a deleted or demoted user is rejected
+// on the next request rather than after jwt.user-cache.expire-after-write.
+@Service
+public class UserDetailsCache {
+
+    private final UserDetailsServiceImpl userDetailsService;
+    private final Cache<String, UserDetails> users;
+
+    public UserDetailsCache(UserDetailsServiceImpl userDetailsService,
+                            @Value("${jwt.user-cache.maximum-size}") long maximumSize,
+                            @Value("${jwt.user-cache.expire-after-write}") Duration expireAfterWrite) {
+        this.userDetailsService = userDetailsService;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public UserDetails loadUserByUsername(String username) {
+        return users.get(username, userDetailsService::loadUserByUsername);
+    }
+
+    // revocation hooks: call when a user is changed, disabled or deleted
+    public void evict(String username) {
+        users.invalidate(username);
+    }
+
+    public void evictAll() {
+        users.invalidateAll();
+    }
+
+    // fallbackExecution: a change made outside a transaction is evicted right away
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.username());
+    }
+}
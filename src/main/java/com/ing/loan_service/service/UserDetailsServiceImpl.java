@@ -1,34 +1,73 @@
 package com.ing.loan_service.service;
 
 import com.ing.loan_service.model.User;
+import com.ing.loan_service.repository.RefreshTokenRepository;
 import com.ing.loan_service.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
+import java.util.Optional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
-
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, RefreshTokenRepository refreshTokenRepository,
+                                  ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        return toUserDetails(user);
+    }
+
+    // Called by the authentication provider after a successful login whose stored hash is weaker than the
+    // configured bcrypt strength, with the password already rehashed; the entity update keeps the cached row current
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
+        return toUserDetails(user);
+    }
+
+    // Revokes the user: the row and its refresh tokens go, and with jwt.user-cache.enabled its access tokens stop
+    // working on the next request. false when there is no such user.
+    @Transactional
+    public boolean deleteUser(String username) {
+        Optional<User> user = userRepository.findByUsername(username);
+        if (user.isEmpty()) {
+            return false;
+        }
+        refreshTokenRepository.deleteAllByUsername(username);
+        userRepository.delete(user.get());
+        eventPublisher.publishEvent(new UserChangedEvent(username));
+        return true;
+    }
 
-        return new org.springframework.security.core.userdetails.User(
+    private UserDetails toUserDetails(User user) {
+        return new LoanUserDetails(
                 user.getUsername(),
                 user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())),
+                user.getCustomer() != null ? user.getCustomer().getId() : null
         );
     }
 }
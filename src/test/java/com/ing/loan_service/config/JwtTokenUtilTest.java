@@ -0,0 +1,95 @@
+package com.ing.loan_service.config;
+
+import com.ing.loan_service.service.LoanUserDetails;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MissingClaimException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenUtilTest {
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtil = new JwtTokenUtil(100);
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", "testSecret");
+    }
+
+    @Test
+    void generateToken_CarriesRoleAndCustomerId() {
+        // Given
+        LoanUserDetails userDetails = new LoanUserDetails("customer1", "password",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_CUSTOMER")), 7L);
+
+        // When
+        JwtPrincipal principal = jwtTokenUtil.getPrincipal(jwtTokenUtil.verifyToken(jwtTokenUtil.generateToken(userDetails)));
+
+        // Then
+        assertEquals("customer1", principal.getName());
+        assertEquals("ROLE_CUSTOMER", principal.role());
+        assertEquals(7L, principal.customerId());
+    }
+
+    @Test
+    void verifyToken_ReusesVerifiedClaims() {
+        // Given
+        LoanUserDetails userDetails = new LoanUserDetails("admin", "password",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN")), null);
+        String token = jwtTokenUtil.generateToken(userDetails);
+
+        // When
+        Claims first = jwtTokenUtil.verifyToken(token);
+        Claims second = jwtTokenUtil.verifyToken(token);
+
+        // Then
+        assertSame(first, second);
+        assertTrue(jwtTokenUtil.validateToken(first, userDetails));
+    }
+
+    @Test
+    void verifyToken_RejectsForeignSignature() {
+        // Given
+        String token = Jwts.builder().setSubject("admin")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, "otherSecret")
+                .compact();
+
+        // When & Then
+        assertThrows(SignatureException.class, () -> jwtTokenUtil.verifyToken(token));
+    }
+
+    @Test
+    void verifyToken_RejectsExpiredToken() {
+        // Given
+        String token = Jwts.builder().setSubject("admin")
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(SignatureAlgorithm.HS512, "testSecret")
+                .compact();
+
+        // When & Then
+        assertThrows(ExpiredJwtException.class, () -> jwtTokenUtil.verifyToken(token));
+    }
+
+    @Test
+    void verifyToken_RejectsTokenWithoutExpiration() {
+        // Given
+        String token = Jwts.builder().setSubject("admin")
+                .signWith(SignatureAlgorithm.HS512, "testSecret")
+                .compact();
+
+        // When & Then
+        assertThrows(MissingClaimException.class, () -> jwtTokenUtil.verifyToken(token));
+    }
+}
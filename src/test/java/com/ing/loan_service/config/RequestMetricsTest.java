@@ -0,0 +1,67 @@
+package com.ing.loan_service.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RequestMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void requestsRecordServiceTimingsQueryFanOutAndPaymentOutcomes() throws Exception {
+        // Given
+        String token = login("customer1", "customer123");
+        String loan = mockMvc.perform(post("/api/loans").header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\":1,\"amount\":1000,\"interestRate\":0.1,\"numberOfInstallments\":\"12\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String loanId = loan.replaceAll(".*\"loadId\":(\\d+).*", "$1");
+
+        // When
+        mockMvc.perform(get("/api/loans").param("customerId", "1").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        // no exception handler is registered, the rejection surfaces from the dispatcher
+        assertThrows(Exception.class, () -> mockMvc.perform(post("/api/loans/{loanId}/pay", loanId)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":1}")));
+        mockMvc.perform(get("/api/loans").param("customerId", "1").header("Authorization", "Bearer broken"))
+                .andExpect(status().isUnauthorized());
+
+        // Then
+        assertTrue(meterRegistry.get("loan.service").tag("method", "listLoans").timer().count() >= 1);
+        assertTrue(meterRegistry.get("jwt.verify").tag("outcome", "valid").timer().count() >= 3);
+        assertTrue(meterRegistry.get("jwt.verify").tag("outcome", "invalid").timer().count() >= 1);
+        assertTrue(meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "CustomerRepository").tag("method", "reserveCredit").timer().count() >= 1);
+        assertTrue(meterRegistry.get("http.server.requests.statements")
+                .tag("method", "POST").tag("uri", "/api/loans").summary().max() >= 2);
+        assertTrue(meterRegistry.get("loan.payments").tag("outcome", "insufficient").counter().count() >= 1);
+    }
+
+    private String login(String username, String password) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return body.replaceAll(".*\"jwttoken\":\"([^\"]*)\".*", "$1");
+    }
+}
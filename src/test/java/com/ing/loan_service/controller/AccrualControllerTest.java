@@ -0,0 +1,72 @@
+package com.ing.loan_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:accrualapi;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class AccrualControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void runAccrual_IsAcceptedAndCompletesInTheBackground() throws Exception {
+        // Given
+        String adminToken = login();
+        LocalDate asOfDate = LocalDate.now().plusMonths(2);
+
+        // When
+        MockHttpServletResponse accepted = mockMvc.perform(post("/api/accruals")
+                        .param("asOfDate", asOfDate.toString())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse();
+
+        // Then: the run is polled at its location until the background worker completed it
+        assertEquals(asOfDate.toString(), objectMapper.readTree(accepted.getContentAsString()).get("asOfDate").asText());
+        String location = accepted.getHeader(HttpHeaders.LOCATION);
+        assertTrue(location.endsWith("/api/accruals/" + asOfDate));
+        JsonNode run = null;
+        for (int attempt = 0; attempt < 100 && (run == null || !run.get("completed").asBoolean()); attempt++) {
+            Thread.sleep(20);
+            run = objectMapper.readTree(mockMvc.perform(get(location).header("Authorization", "Bearer " + adminToken))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+        }
+        assertTrue(run.get("completed").asBoolean());
+
+        // and starting it again just returns the completed run
+        mockMvc.perform(post("/api/accruals")
+                        .param("asOfDate", asOfDate.toString())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+    }
+
+    private String login() throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"admin\",\"password\":\"admin\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("jwttoken").asText();
+    }
+}
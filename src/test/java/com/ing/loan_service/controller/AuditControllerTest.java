@@ -0,0 +1,79 @@
+package com.ing.loan_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:audit;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class AuditControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void audit_RecordsCommittedLoanChangesWithTheirActor() throws Exception {
+        // Given
+        String customerToken = login("customer1", "customer123");
+        String adminToken = login("admin", "admin");
+
+        // When
+        String loan = mockMvc.perform(post("/api/loans")
+                        .header("Authorization", "Bearer " + customerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\":1,\"amount\":1000,\"interestRate\":0.1,\"numberOfInstallments\":\"6\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String loanId = objectMapper.readTree(loan).get("loadId").asText();
+        mockMvc.perform(post("/api/loans/{loanId}/pay", loanId)
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\":200}"))
+                .andExpect(status().isOk());
+
+        // Then: the writer thread catches up shortly after the commits
+        JsonNode records = null;
+        for (int attempt = 0; attempt < 100 && (records == null || records.size() < 2); attempt++) {
+            Thread.sleep(20);
+            records = objectMapper.readTree(mockMvc.perform(get("/api/audit").param("loanId", loanId)
+                            .header("Authorization", "Bearer " + adminToken))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+        }
+        assertEquals(2, records.size());
+        assertEquals("LOAN_CREATED", records.get(0).get("type").asText());
+        assertEquals("customer1", records.get(0).get("actor").asText());
+        assertEquals(0, records.get(0).get("amount").decimalValue().compareTo(new BigDecimal("1100")));
+        assertEquals("LOAN_PAID", records.get(1).get("type").asText());
+        assertEquals("admin", records.get(1).get("actor").asText());
+        assertEquals(1, records.get(1).get("installments").asInt());
+
+        // customers can not read the journal
+        mockMvc.perform(get("/api/audit").header("Authorization", "Bearer " + customerToken))
+                .andExpect(status().isForbidden());
+    }
+
+    private String login(String username, String password) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("jwttoken").asText();
+    }
+}
@@ -0,0 +1,79 @@
+package com.ing.loan_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ing.loan_service.model.User;
+import com.ing.loan_service.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auth;DB_CLOSE_DELAY=-1",
+        "password-hash.bcrypt-strength=5"
+})
+@AutoConfigureMockMvc
+class AuthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void refresh_IssuesANewPairAndConsumesTheOldToken() throws Exception {
+        // Given
+        JsonNode login = exchange("/api/auth/login", "{\"username\":\"customer1\",\"password\":\"customer123\"}");
+        String refreshToken = login.get("refreshToken").asText();
+
+        // When
+        JsonNode refreshed = exchange("/api/auth/refresh", "{\"refreshToken\":\"" + refreshToken + "\"}");
+
+        // Then: the new access token works and the old refresh token is spent
+        mockMvc.perform(get("/api/loans").param("customerId", "1")
+                        .header("Authorization", "Bearer " + refreshed.get("jwttoken").asText()))
+                .andExpect(status().isOk());
+        assertNotEquals(refreshToken, refreshed.get("refreshToken").asText());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void login_RehashesPasswordsBelowTheConfiguredStrength() throws Exception {
+        // Given: a user hashed at cost 4
+        userRepository.save(new User("weak-hash", new BCryptPasswordEncoder(4).encode("secret"), User.Role.ADMIN));
+
+        // When
+        exchange("/api/auth/login", "{\"username\":\"weak-hash\",\"password\":\"secret\"}");
+
+        // Then: stored at the configured cost and still accepted
+        String rehashed = userRepository.findByUsername("weak-hash").orElseThrow().getPassword();
+        assertTrue(rehashed.startsWith("$2a$05$"), rehashed);
+        assertTrue(new BCryptPasswordEncoder().matches("secret", rehashed));
+        exchange("/api/auth/login", "{\"username\":\"weak-hash\",\"password\":\"secret\"}");
+    }
+
+    private JsonNode exchange(String path, String body) throws Exception {
+        String response = mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+}
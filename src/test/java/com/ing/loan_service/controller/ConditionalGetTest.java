@@ -0,0 +1,119 @@
+package com.ing.loan_service.controller;
+
+import com.ing.loan_service.model.LoanInstallment;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:conditionalget;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String token;
+
+    @BeforeEach
+    void login() throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"customer1\",\"password\":\"customer123\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = body.replaceAll(".*\"jwttoken\":\"([^\"]*)\".*", "$1");
+    }
+
+    @Test
+    void installments_AreNotModifiedUntilTheLoanIsPaid() throws Exception {
+        // Given
+        String loanId = createLoan();
+        String etag = mockMvc.perform(authorized(get("/api/loans/{loanId}/installments", loanId)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        EntityStatistics installments = entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getEntityStatistics(LoanInstallment.class.getName());
+        long loads = installments.getLoadCount();
+
+        // When
+        mockMvc.perform(authorized(get("/api/loans/{loanId}/installments", loanId))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        // Then: answered from the loan version alone
+        assertEquals(loads, installments.getLoadCount());
+
+        // When: a payment bumps the loan version
+        mockMvc.perform(authorized(post("/api/loans/{loanId}/pay", loanId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\":100}"))
+                .andExpect(status().isOk());
+
+        // Then
+        String paidEtag = mockMvc.perform(authorized(get("/api/loans/{loanId}/installments", loanId))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, paidEtag);
+    }
+
+    @Test
+    void loanListing_IsNotModifiedUntilACustomerLoanChanges() throws Exception {
+        // Given
+        createLoan();
+        String etag = mockMvc.perform(authorized(get("/api/loans").param("customerId", "1")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        // When / Then
+        mockMvc.perform(authorized(get("/api/loans").param("customerId", "1"))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // When: another loan is taken out
+        createLoan();
+
+        // Then
+        mockMvc.perform(authorized(get("/api/loans").param("customerId", "1"))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    private String createLoan() throws Exception {
+        String loan = mockMvc.perform(authorized(post("/api/loans"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\":1,\"amount\":1000,\"interestRate\":0.1,\"numberOfInstallments\":\"12\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return loan.replaceAll(".*\"loadId\":(\\d+).*", "$1");
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+}
@@ -0,0 +1,79 @@
+package com.ing.loan_service.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pagination;DB_CLOSE_DELAY=-1",
+        "pagination.default-page-size=5",
+        "pagination.max-page-size=10"
+})
+@AutoConfigureMockMvc
+class PaginationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void installments_AreReturnedWholeUpToTheMaximumUnlessAPageIsAskedFor() throws Exception {
+        // Given: twelve installments
+        String token = login();
+        String loan = mockMvc.perform(post("/api/loans")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\":1,\"amount\":1000,\"interestRate\":0.1,\"numberOfInstallments\":\"12\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String loanId = objectMapper.readTree(loan).get("loadId").asText();
+
+        // When: neither a cursor nor a limit
+        MockHttpServletResponse whole = mockMvc.perform(get("/api/loans/{loanId}/installments", loanId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        // Then: capped at the maximum page size
+        assertEquals(10, objectMapper.readTree(whole.getContentAsString()).size());
+        String cursor = whole.getHeader(LoanController.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+
+        // When / Then: a cursor without a limit gets the default page size
+        MockHttpServletResponse next = mockMvc.perform(get("/api/loans/{loanId}/installments", loanId)
+                        .param("cursor", cursor)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals(2, objectMapper.readTree(next.getContentAsString()).size());
+
+        // When / Then: an explicit limit still pages from the start
+        MockHttpServletResponse limited = mockMvc.perform(get("/api/loans/{loanId}/installments", loanId)
+                        .param("limit", "3")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals(3, objectMapper.readTree(limited.getContentAsString()).size());
+    }
+
+    private String login() throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"customer1\",\"password\":\"customer123\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("jwttoken").asText();
+    }
+}
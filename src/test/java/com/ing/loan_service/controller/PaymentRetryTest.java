@@ -0,0 +1,142 @@
+package com.ing.loan_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.model.Loan;
+import com.ing.loan_service.model.LoanInstallment;
+import com.ing.loan_service.repository.LoanRepository;
+import com.ing.loan_service.service.LoanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:paymentretry;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class PaymentRetryTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @SpyBean
+    private LoanService loanService;
+
+    private String token;
+
+    @BeforeEach
+    void login() throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"customer1\",\"password\":\"customer123\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = objectMapper.readTree(body).get("jwttoken").asText();
+    }
+
+    @Test
+    void payLoan_ConflictingPayerSucceedsOnItsSecondAttempt() throws Exception {
+        // Given: the first attempt loses an optimistic lock race
+        Long loanId = createLoan("6");
+        doThrow(new ObjectOptimisticLockingFailureException(LoanInstallment.class, 1L))
+                .doCallRealMethod()
+                .when(loanService).payLoan(eq(loanId), any());
+
+        // When
+        JsonNode result = pay(loanId, "{\"amount\":200}");
+
+        // Then: retried in a fresh transaction
+        assertEquals(1, result.get("installmentsPaid").asInt());
+        verify(loanService, times(2)).payLoan(eq(loanId), any(BigDecimal.class));
+    }
+
+    @Test
+    void payLoan_KeyedPaymentThatLosesARaceIsRetriedInAFreshTransaction() throws Exception {
+        // Given: a loan payable in full today, whose keyed payment reads it just before a second payer commits
+        Long loanId = loanService.createLoan(
+                new CreateLoanRequest(1L, new BigDecimal("1000.00"), 0.1, "3")).getLoadId();
+        AtomicBoolean raced = new AtomicBoolean();
+        ExecutorService competitor = Executors.newSingleThreadExecutor();
+        doAnswer(invocation -> {
+            if (raced.compareAndSet(false, true)) {
+                loanRepository.findById(loanId).orElseThrow();
+                competitor.submit(() -> loanService.payLoan(loanId, new BigDecimal("400.00"))).get();
+            }
+            Object result = invocation.callRealMethod();
+            // surfaces the conflict inside the payment, as any later query touching the loan would
+            loanRepository.flush();
+            return result;
+        }).when(loanService).payLoan(eq(loanId), any());
+
+        // When
+        JsonNode result;
+        try {
+            result = pay(loanId, "{\"amount\":1100}", "pay-off-1");
+        } finally {
+            competitor.shutdown();
+        }
+
+        // Then: the stale loan version rolled the whole keyed transaction back and the retry paid what was left
+        assertEquals(2, result.get("installmentsPaid").asInt());
+        assertTrue(result.get("loanFullyPaid").asBoolean());
+        Loan loan = loanRepository.findById(loanId).orElseThrow();
+        assertTrue(loan.getIsPaid());
+        assertEquals(3, loan.getPaidInstallmentCount());
+        verify(loanService, times(3)).payLoan(eq(loanId), any(BigDecimal.class));
+
+        // and the stored response is the retried one
+        assertEquals(result, pay(loanId, "{\"amount\":1100}", "pay-off-1"));
+    }
+
+    private JsonNode pay(Long loanId, String body) throws Exception {
+        return pay(loanId, body, null);
+    }
+
+    private JsonNode pay(Long loanId, String body, String idempotencyKey) throws Exception {
+        MockHttpServletRequestBuilder request = post("/api/loans/{loanId}/pay", loanId)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+        if (idempotencyKey != null) {
+            request.header(LoanController.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        return objectMapper.readTree(mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private Long createLoan(String installments) throws Exception {
+        String loan = mockMvc.perform(post("/api/loans")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\":1,\"amount\":1000,\"interestRate\":0.1,\"numberOfInstallments\":\""
+                                + installments + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(loan).get("loadId").asLong();
+    }
+}
@@ -0,0 +1,73 @@
+package com.ing.loan_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ing.loan_service.model.User;
+import com.ing.loan_service.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:users;DB_CLOSE_DELAY=-1",
+        "jwt.user-cache.enabled=true",
+        "jwt.user-cache.expire-after-write=1h"
+})
+@AutoConfigureMockMvc
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void deleteUser_RejectsItsTokensBeforeTheCacheExpires() throws Exception {
+        // Given: a confirmed and cached user
+        userRepository.save(new User("revoked", passwordEncoder.encode("secret"), User.Role.ADMIN));
+        JsonNode login = login("revoked", "secret");
+        String accessToken = login.get("jwttoken").asText();
+        mockMvc.perform(get("/api/loans").param("customerId", "1").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        // When
+        String adminToken = login("admin", "admin").get("jwttoken").asText();
+        mockMvc.perform(delete("/api/users/{username}", "revoked").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNoContent());
+
+        // Then: neither the access token nor the refresh token works any more
+        mockMvc.perform(get("/api/loans").param("customerId", "1").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + login.get("refreshToken").asText() + "\"}"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/api/users/{username}", "revoked").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNotFound());
+    }
+
+    private JsonNode login(String username, String password) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ing.loan_service.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void of_RoundsHalfUpToCents() {
+        assertEquals(91667, Money.of(new BigDecimal("916.665")).cents());
+        assertEquals(91666, Money.of(new BigDecimal("916.664")).cents());
+        assertEquals(new BigDecimal("916.67"), Money.ofCents(91667).toBigDecimal());
+    }
+
+    @Test
+    void multiply_MatchesBigDecimalPenaltyAndDiscountMath() {
+        // same formula the BigDecimal implementation used: base +/- base * 0.001 * days, HALF_UP to cents
+        for (long cents = 1; cents < 200_000; cents += 37) {
+            BigDecimal base = BigDecimal.valueOf(cents, 2);
+            for (long days = -120; days <= 120; days++) {
+                BigDecimal expected = base.add(base.multiply(BigDecimal.valueOf(0.001)).multiply(BigDecimal.valueOf(days)))
+                        .setScale(2, RoundingMode.HALF_UP);
+                assertEquals(expected, Money.ofCents(cents).multiply(1000 + days, 1000).toBigDecimal(),
+                        "days " + days);
+            }
+        }
+    }
+
+    @Test
+    void multiply_RoundsNegativeAmountsAwayFromZero() {
+        assertEquals(-2, Money.ofCents(-3).multiply(1, 2).cents());
+        assertEquals(-1, Money.ofCents(-4).multiply(1, 3).cents());
+    }
+}
@@ -0,0 +1,190 @@
+package com.ing.loan_service.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs every custom repository query against a seeded dataset and EXPLAINs the SQL Hibernate sent,
+ * failing when H2 plans a table scan instead of an index lookup.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:queryplans;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.ing.loan_service.repository.QueryPlanTest$CapturingStatementInspector"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final int CUSTOMERS = 500;
+    private static final int LOANS_PER_CUSTOMER = 10;
+    private static final int INSTALLMENTS_PER_LOAN = 12;
+    // clear of the rows DataInitializer creates through the generators
+    private static final long ID_OFFSET = 1_000_000;
+
+    private static final Long CUSTOMER_ID = ID_OFFSET + 42;
+    private static final Long LOAN_ID = (CUSTOMER_ID - ID_OFFSET) * LOANS_PER_CUSTOMER + ID_OFFSET;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanInstallmentRepository installmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO customers (id, version, name, surname, credit_limit, used_credit_limit) " +
+                "SELECT X + ?, 0, 'Plan', 'Customer', 1000000, 0 FROM SYSTEM_RANGE(0, ?)", ID_OFFSET, CUSTOMERS - 1);
+        jdbcTemplate.update("INSERT INTO users (id, username, password, role, customer_id) " +
+                "SELECT X + ?, 'plan' || X, 'x', 'CUSTOMER', X + ? FROM SYSTEM_RANGE(0, ?)",
+                ID_OFFSET, ID_OFFSET, CUSTOMERS - 1);
+        jdbcTemplate.update("INSERT INTO loans (id, version, customer_id, loan_amount, number_of_installment, " +
+                        "create_date, is_paid, paid_installment_count, remaining_amount, next_due_date) " +
+                "SELECT X + ?, 0, X / ? + ?, 1200, ?, DATEADD('MINUTE', X, TIMESTAMP '2025-01-01 00:00:00'), " +
+                "MOD(X, 3) = 0, 2, 1000, DATE '2025-04-01' FROM SYSTEM_RANGE(0, ?)",
+                ID_OFFSET, LOANS_PER_CUSTOMER, ID_OFFSET, INSTALLMENTS_PER_LOAN, CUSTOMERS * LOANS_PER_CUSTOMER - 1);
+        jdbcTemplate.update("INSERT INTO loan_installments (id, version, loan_id, amount, paid_amount, due_date, " +
+                        "payment_date, is_paid) " +
+                "SELECT X + ?, 0, X / ? + ?, 100, 0, DATEADD('MONTH', MOD(X, ?), DATE '2025-02-01'), NULL, " +
+                "MOD(X, ?) < 2 FROM SYSTEM_RANGE(0, ?)",
+                ID_OFFSET, INSTALLMENTS_PER_LOAN, ID_OFFSET, INSTALLMENTS_PER_LOAN, INSTALLMENTS_PER_LOAN,
+                CUSTOMERS * LOANS_PER_CUSTOMER * INSTALLMENTS_PER_LOAN - 1);
+        // refresh the selectivity statistics the optimizer costs plans with
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void loanRepository_findLoansWithFilters() {
+        assertIndexed(() -> loanRepository.findLoansWithFilters(CUSTOMER_ID, false, INSTALLMENTS_PER_LOAN,
+                LocalDateTime.of(2025, 1, 1, 0, 0), LOAN_ID, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void loanRepository_derivedFinders() {
+        assertIndexed(() -> loanRepository.findByCustomerId(CUSTOMER_ID));
+        assertIndexed(() -> loanRepository.findByCustomerIdAndIsPaid(CUSTOMER_ID, false));
+        assertIndexed(() -> loanRepository.findByCustomerIdAndNumberOfInstallment(CUSTOMER_ID, INSTALLMENTS_PER_LOAN));
+        assertIndexed(() -> loanRepository.existsByIdAndCustomerId(LOAN_ID, CUSTOMER_ID));
+        assertIndexed(() -> loanRepository.findSummaryById(LOAN_ID));
+        assertIndexed(() -> loanRepository.findVersionById(LOAN_ID));
+        assertIndexed(() -> loanRepository.findOpenLoanIdsAfter(LOAN_ID, PageRequest.of(0, 100)));
+        assertIndexed(() -> loanRepository.findWithCustomerByIdIn(List.of(LOAN_ID, LOAN_ID + 1)));
+    }
+
+    @Test
+    void installmentRepository_scheduleQueries() {
+        assertIndexed(() -> installmentRepository.findByLoanIdOrderByDueDate(LOAN_ID));
+        assertIndexed(() -> installmentRepository.findPageByLoanId(LOAN_ID, LocalDate.of(2025, 6, 1), LOAN_ID,
+                PageRequest.of(0, 10)));
+        assertIndexed(() -> installmentRepository.findUnpaidByLoanIdOrderByDueDate(LOAN_ID));
+        assertIndexed(() -> installmentRepository.findUnpaidByLoanIdInOrderByDueDate(List.of(LOAN_ID, LOAN_ID + 1)));
+        assertIndexed(() -> installmentRepository.findAccrualRows(List.of(LOAN_ID, LOAN_ID + 1)));
+    }
+
+    @Test
+    void installmentRepository_streamForExport() {
+        assertIndexed(() -> {
+            try (Stream<?> rows = installmentRepository.streamForExport(CUSTOMER_ID)) {
+                rows.forEach(row -> { });
+            }
+        });
+    }
+
+    @Test
+    void customerRepository_creditQueries() {
+        assertIndexed(() -> customerRepository.reserveCredit(CUSTOMER_ID, BigDecimal.ONE));
+        assertIndexed(() -> customerRepository.releaseCredit(CUSTOMER_ID, BigDecimal.ONE));
+        assertIndexed(() -> customerRepository.findCreditById(CUSTOMER_ID));
+    }
+
+    @Test
+    void userRepository_lookups() {
+        assertIndexed(() -> userRepository.findByUsername("plan42"));
+        assertIndexed(() -> userRepository.findCustomerIdByUsername("plan42"));
+    }
+
+    @Test
+    void idempotencyRecordRepository_lookupAndCompaction() {
+        LocalDateTime now = LocalDateTime.now();
+        assertIndexed(() -> idempotencyRecordRepository.findLive("plan42:key", now));
+        assertIndexed(() -> idempotencyRecordRepository.deleteExpired("plan42:key", now));
+        assertIndexed(() -> idempotencyRecordRepository.deleteAllExpired(now));
+    }
+
+    @Test
+    void refreshTokenRepository_redemptionAndCompaction() {
+        LocalDateTime now = LocalDateTime.now();
+        assertIndexed(() -> refreshTokenRepository.findLiveUsername("0".repeat(64), now));
+        assertIndexed(() -> refreshTokenRepository.deleteLive("0".repeat(64), now));
+        assertIndexed(() -> refreshTokenRepository.deleteAllExpired(now));
+        assertIndexed(() -> refreshTokenRepository.deleteAllByUsername("customer1"));
+    }
+
+    // Runs the call in a rolled back transaction and EXPLAINs each statement it issued
+    private void assertIndexed(Runnable call) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            call.run();
+            status.setRollbackOnly();
+        });
+        List<String> statements = new ArrayList<>(CapturingStatementInspector.STATEMENTS);
+        assertFalse(statements.isEmpty(), "no SQL captured");
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.contains(".tableScan"), () -> "table scan in plan of\n" + sql + "\n" + plan);
+        }
+    }
+
+    private String explain(String sql) {
+        // prepared without binding: H2 plans against the ?N placeholders
+        return jdbcTemplate.query("EXPLAIN " + sql, ps -> { }, rs -> {
+            rs.next();
+            return rs.getString(1);
+        });
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ing.loan_service.repository;
+
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.model.CacheRegions;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.model.User;
+import com.ing.loan_service.service.LoanService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:secondlevelcache;DB_CLOSE_DELAY=-1")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void customerReads_HitTheCacheUntilCreditIsReserved() {
+        // Given: a cached customer
+        Customer customer = customerRepository.save(new Customer("Cached", "Customer", new BigDecimal("10000.00")));
+        customerRepository.findById(customer.getId()).orElseThrow();
+        CacheRegionStatistics customers = statistics().getDomainDataRegionStatistics(CacheRegions.CUSTOMERS);
+        long hits = customers.getHitCount();
+
+        // When: read again in separate transactions
+        customerRepository.findById(customer.getId()).orElseThrow();
+        customerRepository.findById(customer.getId()).orElseThrow();
+
+        // Then
+        assertEquals(hits + 2, customers.getHitCount());
+
+        // When: the bulk credit update behind createLoan commits
+        loanService.createLoan(new CreateLoanRequest(customer.getId(), new BigDecimal("1000.00"), 0.1, "6"));
+
+        // Then: the stale entry is gone and the next read sees the reserved credit
+        long misses = customers.getMissCount();
+        Customer reloaded = customerRepository.findById(customer.getId()).orElseThrow();
+        assertEquals(misses + 1, customers.getMissCount());
+        assertEquals(0, reloaded.getUsedCreditLimit().compareTo(new BigDecimal("1100.00")));
+        assertEquals(customer.getVersion() + 1, reloaded.getVersion());
+    }
+
+    @Test
+    void findByUsername_IsServedFromTheQueryCacheUntilUsersChange() {
+        // Given
+        Customer customer = customerRepository.save(new Customer("Cached", "User", new BigDecimal("10000.00")));
+        User user = userRepository.save(new User("cached-user", "hash", User.Role.CUSTOMER, customer));
+        Statistics statistics = statistics();
+        CacheRegionStatistics byUsername = statistics.getQueryRegionStatistics(CacheRegions.USERS_BY_USERNAME);
+        CacheRegionStatistics users = statistics.getDomainDataRegionStatistics(CacheRegions.USERS);
+
+        // When: the first lookup runs the query, the second resolves it from the caches alone
+        userRepository.findByUsername("cached-user").orElseThrow();
+        long queryHits = byUsername.getHitCount();
+        long userHits = users.getHitCount();
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(customer.getId(), userRepository.findByUsername("cached-user").orElseThrow().getCustomer().getId());
+
+        // Then
+        assertEquals(queryHits + 1, byUsername.getHitCount());
+        assertEquals(userHits + 1, users.getHitCount());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+
+        // When: the username changes, every cached users query is invalidated
+        user.setUsername("renamed-user");
+        userRepository.save(user);
+
+        // Then
+        assertTrue(userRepository.findByUsername("cached-user").isEmpty());
+        assertEquals(user.getId(), userRepository.findByUsername("renamed-user").orElseThrow().getId());
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
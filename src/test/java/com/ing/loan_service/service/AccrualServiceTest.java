@@ -0,0 +1,135 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.AccrualSummary;
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.exception.AccrualInProgressException;
+import com.ing.loan_service.model.AccrualRun;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.model.LoanAccrual;
+import com.ing.loan_service.repository.AccrualRunRepository;
+import com.ing.loan_service.repository.CustomerRepository;
+import com.ing.loan_service.repository.LoanAccrualRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:accruals;DB_CLOSE_DELAY=-1",
+        "accrual.chunk-size=2"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AccrualServiceTest {
+
+    private static final int LOANS = 5;
+
+    @Autowired
+    private AccrualService accrualService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanAccrualRepository accrualRepository;
+
+    @Autowired
+    private AccrualRunRepository runRepository;
+
+    private final List<Long> loanIds = new ArrayList<>();
+    private LocalDate firstDueDate;
+
+    @BeforeAll
+    void createLoans() {
+        // five 12 x 100.00 loans
+        Customer customer = customerRepository.save(new Customer("Accrual", "Customer", new BigDecimal("100000.00")));
+        for (int i = 0; i < LOANS; i++) {
+            loanIds.add(loanService.createLoan(
+                    new CreateLoanRequest(customer.getId(), new BigDecimal("1200.00"), 0.0, "12")).getLoadId());
+        }
+        firstDueDate = LocalDate.now().plusMonths(1).withDayOfMonth(1);
+    }
+
+    @Test
+    void accrue_SnapshotsEveryOpenLoanChunkByChunk() {
+        // When: ten days after the first due date
+        LocalDate asOfDate = firstDueDate.plusDays(10);
+        AccrualSummary summary = accrualService.accrue(asOfDate);
+
+        // Then: the first installment is 10 days late, 0.1% a day on 100.00
+        assertTrue(summary.isCompleted());
+        assertEquals(3, summary.getChunksProcessed());
+        assertEquals(LOANS, summary.getLoansProcessed());
+        assertEquals(LOANS, summary.getOverdueInstallments());
+        assertEquals(new BigDecimal("5.00"), summary.getPenaltyAmount());
+        assertEquals(new BigDecimal("6000.00"), summary.getScheduledAmount());
+        assertTrue(summary.getDiscountAmount().signum() > 0);
+
+        List<LoanAccrual> accruals = accrualRepository.findByAsOfDate(asOfDate);
+        assertEquals(loanIds, accruals.stream().map(LoanAccrual::getLoanId).toList());
+        assertEquals(new BigDecimal("1.00"), accruals.get(0).getPenaltyAmount());
+        assertEquals(12, accruals.get(0).getUnpaidInstallments());
+
+        // a completed run is not accrued twice
+        accrualService.accrue(asOfDate);
+        assertEquals(LOANS, accrualRepository.findByAsOfDate(asOfDate).size());
+    }
+
+    @Test
+    void accrue_ResumesAfterTheLastCommittedChunk() {
+        // Given: a run that stopped after its first chunk of two loans
+        LocalDate asOfDate = firstDueDate.plusDays(20);
+        AccrualRun interrupted = new AccrualRun(asOfDate);
+        interrupted.setLastLoanId(loanIds.get(1));
+        interrupted.setLoansProcessed(2L);
+        interrupted.setChunksProcessed(1);
+        runRepository.save(interrupted);
+
+        // When
+        AccrualSummary summary = accrualService.accrue(asOfDate);
+
+        // Then: only the remaining loans were accrued
+        assertTrue(summary.isCompleted());
+        assertEquals(LOANS, summary.getLoansProcessed());
+        assertEquals(loanIds.subList(2, LOANS),
+                accrualRepository.findByAsOfDate(asOfDate).stream().map(LoanAccrual::getLoanId).toList());
+        assertEquals(new BigDecimal("6.00"), summary.getPenaltyAmount());
+    }
+
+    @Test
+    void accrue_LeavesALiveClaimAloneAndTakesOverAnAbandonedOne() {
+        // Given: a run another instance is processing
+        LocalDate asOfDate = firstDueDate.plusDays(30);
+        AccrualRun claimed = new AccrualRun(asOfDate);
+        claimed.setClaimedBy("other-instance");
+        claimed.setClaimedUntil(LocalDateTime.now().plusMinutes(5));
+        runRepository.save(claimed);
+
+        // When / Then
+        assertThrows(AccrualInProgressException.class, () -> accrualService.accrue(asOfDate));
+        assertTrue(accrualRepository.findByAsOfDate(asOfDate).isEmpty());
+
+        // Given: that instance died and its claim ran out
+        claimed.setClaimedUntil(LocalDateTime.now().minusSeconds(1));
+        runRepository.save(claimed);
+
+        // When
+        AccrualSummary summary = accrualService.accrue(asOfDate);
+
+        // Then: taken over, and released once completed
+        assertTrue(summary.isCompleted());
+        assertEquals(LOANS, accrualRepository.findByAsOfDate(asOfDate).size());
+        assertNull(runRepository.findById(asOfDate).orElseThrow().getClaimedBy());
+    }
+}
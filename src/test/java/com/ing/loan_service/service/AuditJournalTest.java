@@ -0,0 +1,131 @@
+package com.ing.loan_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void journal_RotatesSegmentsAndContinuesSequencesAfterRestart() throws IOException {
+        // Given: segments too small for more than a few records
+        AuditJournal journal = open();
+        for (long loanId = 1; loanId <= 100; loanId++) {
+            assertTrue(journal.append(record(AuditEventType.LOAN_CREATED, loanId, "customer1")));
+        }
+        journal.close();
+
+        // When
+        AuditJournal reopened = open();
+        reopened.append(record(AuditEventType.LOAN_CLOSED, 1L, "admin"));
+        reopened.close();
+
+        // Then
+        assertTrue(AuditJournalFormat.segments(directory).size() > 1);
+        List<AuditRecord> replayed = new ArrayList<>();
+        AuditJournalReader.replay(directory, replayed::add);
+        assertEquals(101, replayed.size());
+        for (int i = 0; i < replayed.size(); i++) {
+            assertEquals(i + 1, replayed.get(i).sequence());
+        }
+        AuditRecord last = replayed.get(100);
+        assertEquals(AuditEventType.LOAN_CLOSED, last.type());
+        assertEquals("admin", last.actor());
+        assertEquals(1L, last.loanId());
+        assertEquals(new BigDecimal("1100.00"), last.amount());
+    }
+
+    @Test
+    void query_FiltersAndPagesAfterASequence() throws IOException {
+        // Given
+        AuditJournal journal = open();
+        for (long loanId = 1; loanId <= 30; loanId++) {
+            journal.append(record(AuditEventType.LOAN_CREATED, loanId, "customer1"));
+            journal.append(record(AuditEventType.LOAN_PAID, loanId, loanId % 2 == 0 ? "admin" : "customer1"));
+        }
+        journal.close();
+        AuditJournal reader = open();
+
+        // When
+        List<AuditRecord> firstPage = reader.query(null, null, "admin", AuditEventType.LOAN_PAID, 0, 10);
+        List<AuditRecord> secondPage = reader.query(null, null, "admin", AuditEventType.LOAN_PAID,
+                firstPage.get(9).sequence(), 10);
+        List<AuditRecord> loan7 = reader.query(7L, null, null, null, 0, 10);
+        reader.close();
+
+        // Then
+        assertEquals(10, firstPage.size());
+        assertEquals(5, secondPage.size());
+        assertTrue(secondPage.stream().allMatch(record -> record.loanId() % 2 == 0 && "admin".equals(record.actor())));
+        assertEquals(30L, secondPage.get(4).loanId());
+        assertEquals(List.of(AuditEventType.LOAN_CREATED, AuditEventType.LOAN_PAID),
+                loan7.stream().map(AuditRecord::type).toList());
+    }
+
+    @Test
+    void writer_TruncatesATornFrameOnRecovery() throws IOException {
+        // Given: a frame whose payload never made it to disk
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(directory, 4096)) {
+            writer.append(record(AuditEventType.LOAN_CREATED, 1L, "customer1"));
+            writer.append(record(AuditEventType.LOAN_PAID, 1L, "customer1"));
+        }
+        Path segment = AuditJournalFormat.segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            mapped.position(AuditJournalFormat.SEGMENT_HEADER_SIZE);
+            while (AuditJournalFormat.readFrame(mapped) != null) {
+                // skip to the end of the written frames
+            }
+            mapped.putInt(mapped.position(), 40);
+            mapped.putInt(mapped.position() + 4, 12345);
+            mapped.put(mapped.position() + 8, ByteBuffer.wrap(new byte[]{1, 2, 3}), 0, 3);
+            mapped.force();
+        }
+
+        // When
+        try (AuditSegmentWriter writer = new AuditSegmentWriter(directory, 4096)) {
+            AuditRecord appended = writer.append(record(AuditEventType.LOAN_CLOSED, 1L, "admin"));
+
+            // Then: the torn frame's place is reused
+            assertEquals(3, appended.sequence());
+        }
+        List<AuditRecord> replayed = new ArrayList<>();
+        AuditJournalReader.replay(directory, replayed::add);
+        assertEquals(List.of(AuditEventType.LOAN_CREATED, AuditEventType.LOAN_PAID, AuditEventType.LOAN_CLOSED),
+                replayed.stream().map(AuditRecord::type).toList());
+    }
+
+    @Test
+    void writer_RefusesADirectoryInUse() throws IOException {
+        try (AuditSegmentWriter ignored = new AuditSegmentWriter(directory, 4096)) {
+            assertThrows(IllegalStateException.class, () -> new AuditSegmentWriter(directory, 4096));
+        }
+    }
+
+    private AuditJournal open() throws IOException {
+        return new AuditJournal(directory.toString(), DataSize.ofBytes(1024), 256, Duration.ofMillis(10),
+                new SimpleMeterRegistry());
+    }
+
+    private static AuditRecord record(AuditEventType type, Long loanId, String actor) {
+        return new AuditRecord(0, Instant.now(), type, actor, loanId, 1L, new BigDecimal("1100.00"), 12);
+    }
+}
@@ -0,0 +1,158 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.BatchPaymentRequest;
+import com.ing.loan_service.dto.BatchPaymentResult;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.model.Loan;
+import com.ing.loan_service.model.LoanInstallment;
+import com.ing.loan_service.repository.CustomerRepository;
+import com.ing.loan_service.repository.LoanInstallmentRepository;
+import com.ing.loan_service.repository.LoanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchPaymentServiceTest {
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private LoanInstallmentRepository installmentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BatchPaymentService batchPaymentService;
+
+    private Customer testCustomer;
+    private Loan testLoan;
+
+    @BeforeEach
+    void setUp() {
+        LoanService loanService = new LoanService(loanRepository, customerRepository, installmentRepository,
+                new ScheduleTemplateCache(), null, event -> { });
+        batchPaymentService = new BatchPaymentService(loanService, loanRepository, installmentRepository,
+                transactionManager, new PaymentMetrics(meterRegistry), 2);
+
+        testCustomer = new Customer("John", "Doe", new BigDecimal("50000.00"));
+        testCustomer.setId(1L);
+
+        testLoan = new Loan(testCustomer, new BigDecimal("200.00"), 2);
+        testLoan.setId(1L);
+    }
+
+    @Test
+    void payLoans_AppliesItemsPerLoanInOrder() {
+        // Given
+        LocalDate firstOfNextMonth = LocalDate.now().plusMonths(1).withDayOfMonth(1);
+        List<LoanInstallment> unpaidInstallments = new ArrayList<>();
+        unpaidInstallments.add(new LoanInstallment(testLoan, new BigDecimal("100.00"), firstOfNextMonth));
+        unpaidInstallments.add(new LoanInstallment(testLoan, new BigDecimal("100.00"), firstOfNextMonth.plusMonths(1)));
+
+        when(loanRepository.findWithCustomerByIdIn(anyCollection())).thenReturn(List.of(testLoan));
+        when(installmentRepository.findUnpaidByLoanIdInOrderByDueDate(anyCollection())).thenReturn(unpaidInstallments);
+
+        List<BatchPaymentRequest.Item> payments = List.of(
+                new BatchPaymentRequest.Item(1L, new BigDecimal("100.00")),
+                new BatchPaymentRequest.Item(99L, new BigDecimal("100.00")),
+                new BatchPaymentRequest.Item(1L, new BigDecimal("1.00")),
+                new BatchPaymentRequest.Item(1L, new BigDecimal("100.00")));
+
+        // When
+        List<BatchPaymentResult> results = batchPaymentService.payLoans(payments);
+
+        // Then
+        assertEquals(4, results.size());
+        assertEquals(BatchPaymentResult.PAID, results.get(0).getStatus());
+        assertEquals(1, results.get(0).getInstallmentsPaid());
+        assertFalse(results.get(0).getLoanFullyPaid());
+
+        assertEquals(BatchPaymentResult.FAILED, results.get(1).getStatus());
+        assertEquals("Loan not found", results.get(1).getError());
+
+        assertEquals(BatchPaymentResult.FAILED, results.get(2).getStatus());
+        assertEquals("Amount is insufficient to pay any installment", results.get(2).getError());
+
+        assertEquals(BatchPaymentResult.PAID, results.get(3).getStatus());
+        assertTrue(results.get(3).getLoanFullyPaid());
+        assertTrue(testLoan.getIsPaid());
+        assertEquals(2, testLoan.getPaidInstallmentCount());
+        assertEquals(0, testLoan.getRemainingAmount().signum());
+        verify(customerRepository).releaseCredit(1L, new BigDecimal("200.00"));
+
+        // loans 1 and 99 fit in one chunk of two
+        verify(transactionManager, times(1)).commit(any());
+        verify(installmentRepository, never()).save(any(LoanInstallment.class));
+
+        assertEquals(2, payments("paid"));
+        assertEquals(1, payments("insufficient"));
+        assertEquals(1, payments("failed"));
+    }
+
+    @Test
+    void payLoans_ReplaysAChunkLostToAConflictLoanByLoan() {
+        // Given: loans 1 and 2 share a chunk, and a concurrent payment keeps changing loan 2
+        when(loanRepository.findWithCustomerByIdIn(anyCollection())).thenAnswer(invocation ->
+                loanIds(invocation).stream().map(this::loan).toList());
+        when(installmentRepository.findUnpaidByLoanIdInOrderByDueDate(anyCollection())).thenAnswer(invocation ->
+                loanIds(invocation).stream()
+                        .map(loanId -> new LoanInstallment(loan(loanId), new BigDecimal("100.00"),
+                                LocalDate.now().plusMonths(1).withDayOfMonth(1)))
+                        .toList());
+        ObjectOptimisticLockingFailureException conflict =
+                new ObjectOptimisticLockingFailureException(Loan.class, 2L);
+        doThrow(conflict).doNothing().doThrow(conflict).when(transactionManager).commit(any());
+
+        // When
+        List<BatchPaymentResult> results = batchPaymentService.payLoans(List.of(
+                new BatchPaymentRequest.Item(1L, new BigDecimal("100.00")),
+                new BatchPaymentRequest.Item(2L, new BigDecimal("100.00"))));
+
+        // Then: the chunk, then each loan on its own
+        assertEquals(BatchPaymentResult.PAID, results.get(0).getStatus());
+        assertEquals(BatchPaymentResult.FAILED, results.get(1).getStatus());
+        assertEquals(conflict.getMessage(), results.get(1).getError());
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(1, payments("paid"));
+        assertEquals(1, payments("failed"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Long> loanIds(InvocationOnMock invocation) {
+        return (Collection<Long>) invocation.getArgument(0, Collection.class);
+    }
+
+    private Loan loan(Long loanId) {
+        Loan loan = new Loan(testCustomer, new BigDecimal("200.00"), 2);
+        loan.setId(loanId);
+        return loan;
+    }
+
+    private double payments(String outcome) {
+        return meterRegistry.get("loan.payments").tag("outcome", outcome).counter().count();
+    }
+}
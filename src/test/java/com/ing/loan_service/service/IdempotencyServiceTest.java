@@ -0,0 +1,172 @@
+package com.ing.loan_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.dto.PaymentResult;
+import com.ing.loan_service.exception.IdempotencyKeyReuseException;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.repository.CustomerRepository;
+import com.ing.loan_service.repository.IdempotencyRecordRepository;
+import com.ing.loan_service.repository.LoanRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void execute_RetriedPaymentIsReplayedWithoutTouchingTheLoan() {
+        // Given
+        Long loanId = createLoan();
+        BigDecimal amount = new BigDecimal("100.00");
+        IdempotentResponse<PaymentResult> first = idempotencyService.execute("payer", "pay-1", List.of(loanId, amount),
+                PaymentResult.class, () -> loanService.payLoan(loanId, amount));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // When
+        statistics.clear();
+        IdempotentResponse<PaymentResult> retry = idempotencyService.execute("payer", "pay-1", List.of(loanId, amount),
+                PaymentResult.class, () -> loanService.payLoan(loanId, amount));
+
+        // Then: served from memory, no statement at all
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.body(), retry.body());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, loanRepository.findById(loanId).orElseThrow().getPaidInstallmentCount());
+
+        // and from the table once the in-memory store no longer has it
+        IdempotentResponse<PaymentResult> afterRestart = newService(Duration.ofHours(1)).execute("payer", "pay-1",
+                List.of(loanId, amount), PaymentResult.class, () -> loanService.payLoan(loanId, amount));
+        assertTrue(afterRestart.replayed());
+        assertEquals(first.body(), afterRestart.body());
+        assertEquals(1, loanRepository.findById(loanId).orElseThrow().getPaidInstallmentCount());
+    }
+
+    @Test
+    void execute_KeyReusedForAnotherRequestIsRejected() {
+        Long loanId = createLoan();
+        idempotencyService.execute("payer", "pay-2", List.of(loanId, new BigDecimal("100.00")),
+                PaymentResult.class, () -> loanService.payLoan(loanId, new BigDecimal("100.00")));
+
+        assertThrows(IdempotencyKeyReuseException.class, () -> idempotencyService.execute("payer", "pay-2",
+                List.of(loanId, new BigDecimal("200.00")), PaymentResult.class,
+                () -> loanService.payLoan(loanId, new BigDecimal("200.00"))));
+    }
+
+    @Test
+    void execute_ConcurrentDuplicatesApplyOnce() throws Exception {
+        // Given
+        Long loanId = createLoan();
+        BigDecimal amount = new BigDecimal("100.00");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<IdempotentResponse<PaymentResult>>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> idempotencyService.execute("payer", "pay-3", List.of(loanId, amount),
+                        PaymentResult.class, () -> loanService.payLoan(loanId, amount))));
+            }
+            List<IdempotentResponse<PaymentResult>> responses = new ArrayList<>();
+            for (Future<IdempotentResponse<PaymentResult>> future : futures) {
+                responses.add(future.get());
+            }
+
+            // Then
+            assertEquals(1, responses.stream().filter(response -> !response.replayed()).count());
+            assertTrue(responses.stream().allMatch(response -> response.body().getInstallmentsPaid() == 1));
+            assertEquals(1, loanRepository.findById(loanId).orElseThrow().getPaidInstallmentCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void execute_LeavesConflictsInsideACallersTransactionToThatCaller() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<PaymentResult> conflicting = () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("conflict");
+        };
+
+        // When: a retry here would run again in a transaction that can only roll back
+        assertThrows(OptimisticLockingFailureException.class, () -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> idempotencyService.execute("payer", "nested-1", List.of(1L),
+                        PaymentResult.class, conflicting)));
+
+        // Then
+        assertEquals(1, attempts.get());
+
+        // while on its own it retries
+        attempts.set(0);
+        assertThrows(OptimisticLockingFailureException.class, () -> idempotencyService.execute("payer", "nested-2",
+                List.of(1L), PaymentResult.class, conflicting));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void compact_RemovesExpiredRecords() throws Exception {
+        IdempotencyService shortLived = newService(Duration.ofMillis(1));
+        shortLived.execute("creator", "create-1", "request", String.class, () -> "created");
+        Thread.sleep(5);
+
+        shortLived.compact();
+
+        assertFalse(recordRepository.existsById("creator:create-1"));
+    }
+
+    private IdempotencyService newService(Duration ttl) {
+        return new IdempotencyService(recordRepository, transactionManager, objectMapper, ttl, 100);
+    }
+
+    private Long createLoan() {
+        Customer customer = customerRepository.save(new Customer("Idempotent", "Customer", new BigDecimal("10000.00")));
+        return loanService.createLoan(
+                new CreateLoanRequest(customer.getId(), new BigDecimal("1200.00"), 0.0, "12")).getLoadId();
+    }
+}
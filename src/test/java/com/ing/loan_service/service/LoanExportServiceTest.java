@@ -0,0 +1,59 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LoanExportServiceTest {
+
+    @Autowired
+    private LoanExportService loanExportService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    void exportInstallments_WritesOneLinePerInstallment() throws Exception {
+        // Given
+        Customer customer = customerRepository.save(new Customer("Export", "Customer", new BigDecimal("100000.00")));
+        loanService.createLoan(new CreateLoanRequest(customer.getId(), new BigDecimal("1000.00"), 0.1, "6"));
+        loanService.createLoan(new CreateLoanRequest(customer.getId(), new BigDecimal("1000.00"), 0.1, "12"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        loanExportService.exportInstallments(customer.getId(), out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).trim().split("\n");
+        assertEquals(18, lines.length);
+        assertTrue(lines[0].startsWith("{\"customerId\":" + customer.getId() + ","));
+        assertTrue(lines[17].contains("\"numberOfInstallment\":12"));
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("}\n"));
+    }
+
+    @Test
+    void exportInstallments_WritesNothingWithoutInstallments() throws Exception {
+        // Given
+        Customer customer = customerRepository.save(new Customer("Empty", "Customer", new BigDecimal("100000.00")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        loanExportService.exportInstallments(customer.getId(), out);
+
+        // Then
+        assertEquals(0, out.size());
+    }
+}
@@ -0,0 +1,104 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.dto.PaymentResult;
+import com.ing.loan_service.exception.InsufficientCreditException;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.repository.CustomerRepository;
+import com.ing.loan_service.repository.LoanInstallmentRepository;
+import com.ing.loan_service.repository.LoanRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LoanServiceConcurrencyTest {
+
+    private static final int THREADS = 64;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanInstallmentRepository installmentRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Test
+    void createLoan_ConcurrentOriginationsNeverOverrunCreditLimit() throws Exception {
+        // Given: room for exactly 10 loans of 1100.00
+        Customer customer = customerRepository.save(new Customer("Concurrent", "Customer", new BigDecimal("11000.00")));
+        CreateLoanRequest request = new CreateLoanRequest(customer.getId(), new BigDecimal("1000.00"), 0.1, "6");
+
+        // When
+        List<Boolean> outcomes = runConcurrently(() -> {
+            try {
+                loanService.createLoan(request);
+                return true;
+            } catch (InsufficientCreditException e) {
+                return false;
+            }
+        });
+
+        // Then
+        assertEquals(10, outcomes.stream().filter(Boolean::booleanValue).count());
+        Customer reloaded = customerRepository.findById(customer.getId()).orElseThrow();
+        assertEquals(0, reloaded.getUsedCreditLimit().compareTo(new BigDecimal("11000.00")));
+    }
+
+    @Test
+    void payLoan_ConcurrentPaymentsNeverPayAnInstallmentTwice() throws Exception {
+        // Given
+        Customer customer = customerRepository.save(new Customer("Concurrent", "Payer", new BigDecimal("100000.00")));
+        Long loanId = loanService.createLoan(
+                new CreateLoanRequest(customer.getId(), new BigDecimal("1200.00"), 0.1, "12")).getLoadId();
+
+        // When: every thread tries to pay a single installment
+        List<Boolean> outcomes = runConcurrently(() -> {
+            try {
+                PaymentResult result = loanService.payLoan(loanId, new BigDecimal("110.00"));
+                return result.getInstallmentsPaid() == 1;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        });
+
+        // Then: only the 3 installments inside the payment window could be paid, each exactly once
+        long paid = outcomes.stream().filter(Boolean::booleanValue).count();
+        assertEquals(paid, installmentRepository.findByLoanIdOrderByDueDate(loanId).stream()
+                .filter(installment -> installment.getIsPaid()).count());
+        assertTrue(paid <= 3);
+        assertEquals(paid, loanRepository.findById(loanId).orElseThrow().getPaidInstallmentCount().longValue());
+    }
+
+    private List<Boolean> runConcurrently(Callable<Boolean> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(task));
+            }
+            List<Boolean> outcomes = new ArrayList<>();
+            for (Future<Boolean> future : futures) {
+                outcomes.add(future.get());
+            }
+            return outcomes;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
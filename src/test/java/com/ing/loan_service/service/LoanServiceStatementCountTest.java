@@ -0,0 +1,53 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.dto.PaymentResult;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.repository.CustomerRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class LoanServiceStatementCountTest {
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void payLoan_StatementCountDoesNotGrowWithInstallmentsPaid() {
+        // Given: two 12 month loans of 100.00 installments
+        Customer customer = customerRepository.save(new Customer("Statement", "Counter", new BigDecimal("100000.00")));
+        CreateLoanRequest request = new CreateLoanRequest(customer.getId(), new BigDecimal("1200.00"), 0.0, "12");
+        Long singleLoanId = loanService.createLoan(request).getLoadId();
+        Long windowLoanId = loanService.createLoan(request).getLoadId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // When
+        statistics.clear();
+        PaymentResult single = loanService.payLoan(singleLoanId, new BigDecimal("100.00"));
+        long singleStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        PaymentResult window = loanService.payLoan(windowLoanId, new BigDecimal("1200.00"));
+        long windowStatements = statistics.getPrepareStatementCount();
+
+        // Then: every installment inside the 3 month window is paid with the same statements as a single one
+        assertEquals(1, single.getInstallmentsPaid());
+        assertEquals(3, window.getInstallmentsPaid());
+        assertEquals(singleStatements, windowStatements);
+    }
+}
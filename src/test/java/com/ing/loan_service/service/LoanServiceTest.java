@@ -1,10 +1,13 @@
 package com.ing.loan_service.service;
 
 import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.dto.CursorPage;
 import com.ing.loan_service.dto.InstallmentsResponse;
 import com.ing.loan_service.dto.LoanResponse;
+import com.ing.loan_service.dto.LoanSummary;
 import com.ing.loan_service.dto.PaymentResult;
 import com.ing.loan_service.exception.InsufficientCreditException;
+import com.ing.loan_service.exception.InvalidCursorException;
 import com.ing.loan_service.model.Customer;
 import com.ing.loan_service.model.Loan;
 import com.ing.loan_service.model.LoanInstallment;
@@ -14,18 +17,25 @@ import com.ing.loan_service.repository.LoanRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +50,15 @@ class LoanServiceTest {
     @Mock
     private LoanInstallmentRepository installmentRepository;
 
+    @Spy
+    private ScheduleTemplateCache scheduleTemplateCache = new ScheduleTemplateCache();
+
+    @Mock
+    private PortfolioReadModel portfolioReadModel;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private LoanService loanService;
 
@@ -60,7 +79,8 @@ class LoanServiceTest {
         // Given
         CreateLoanRequest request = new CreateLoanRequest(1L, new BigDecimal("10000.00"), 0.1, "12");
 
-        when(customerRepository.findById(1L)).thenReturn(Optional.of(testCustomer));
+        when(customerRepository.reserveCredit(1L, new BigDecimal("11000.00"))).thenReturn(1);
+        when(customerRepository.getReferenceById(1L)).thenReturn(testCustomer);
         when(loanRepository.save(any(Loan.class))).thenReturn(testLoan);
         when(installmentRepository.saveAll(any())).thenReturn(new ArrayList<>());
 
@@ -72,22 +92,51 @@ class LoanServiceTest {
         assertEquals(new BigDecimal("11000.00"), result.getLoanAmount());
         assertEquals(12, result.getNumberOfInstallment());
 
-        verify(customerRepository).save(testCustomer);
+        verify(customerRepository).reserveCredit(1L, new BigDecimal("11000.00"));
         verify(loanRepository).save(any(Loan.class));
         verify(installmentRepository).saveAll(any());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void createLoan_InstallmentsAddUpToLoanAmount() {
+        // Given
+        CreateLoanRequest request = new CreateLoanRequest(1L, new BigDecimal("1000.00"), 0.1, "12");
+
+        when(customerRepository.reserveCredit(1L, new BigDecimal("1100.00"))).thenReturn(1);
+        when(customerRepository.getReferenceById(1L)).thenReturn(testCustomer);
+        when(loanRepository.save(any(Loan.class))).thenReturn(testLoan);
+        ArgumentCaptor<List<LoanInstallment>> installments = ArgumentCaptor.forClass(List.class);
+        when(installmentRepository.saveAll(installments.capture())).thenReturn(new ArrayList<>());
+
+        // When
+        loanService.createLoan(request);
+
+        // Then: 1100.00 / 12 = 91.66 r 8, the first 8 installments carry the extra cent
+        List<LoanInstallment> saved = installments.getValue();
+        assertEquals(12, saved.size());
+        assertEquals(new BigDecimal("91.67"), saved.get(0).getAmount());
+        assertEquals(new BigDecimal("91.66"), saved.get(11).getAmount());
+        assertEquals(new BigDecimal("1100.00"), saved.stream()
+                .map(LoanInstallment::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        assertEquals(LocalDate.now().plusMonths(1).withDayOfMonth(1), saved.get(0).getDueDate());
+    }
+
     @Test
     void createLoan_InsufficientCredit() {
         // Given
         CreateLoanRequest request = new CreateLoanRequest(1L, new BigDecimal("100000.00"), 0.1, "12");
 
-        when(customerRepository.findById(1L)).thenReturn(Optional.of(testCustomer));
+        when(customerRepository.reserveCredit(1L, new BigDecimal("110000.00"))).thenReturn(0);
+        when(customerRepository.existsById(1L)).thenReturn(true);
 
         // When & Then
         assertThrows(InsufficientCreditException.class, () -> {
             loanService.createLoan(request);
         });
+
+        verify(loanRepository, never()).save(any(Loan.class));
     }
 
     @Test
@@ -101,14 +150,15 @@ class LoanServiceTest {
                 LocalDate.now().plusDays(10));
         LoanInstallment installment2 = new LoanInstallment(testLoan, new BigDecimal("916.67"),
                 LocalDate.now().plusDays(40));
+        LoanInstallment installment3 = new LoanInstallment(testLoan, new BigDecimal("916.67"),
+                LocalDate.now().plusDays(200));
         unpaidInstallments.add(installment1);
         unpaidInstallments.add(installment2);
+        unpaidInstallments.add(installment3);
 
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(testLoan));
         when(installmentRepository.findUnpaidByLoanIdOrderByDueDate(loanId))
                 .thenReturn(unpaidInstallments);
-        when(installmentRepository.save(any(LoanInstallment.class)))
-                .thenReturn(new LoanInstallment());
 
         // When
         PaymentResult result = loanService.payLoan(loanId, paymentAmount);
@@ -117,27 +167,62 @@ class LoanServiceTest {
         assertNotNull(result);
         assertEquals(2, result.getInstallmentsPaid());
         assertTrue(result.getTotalAmountSpent().compareTo(BigDecimal.ZERO) > 0);
-
-        verify(installmentRepository, times(2)).save(any(LoanInstallment.class));
+        assertFalse(result.isLoanFullyPaid());
+        assertEquals(2, testLoan.getPaidInstallmentCount());
+        assertEquals(new BigDecimal("9166.66"), testLoan.getRemainingAmount());
+        assertEquals(installment3.getDueDate(), testLoan.getNextDueDate());
+
+        // paid installments are flushed as one batch on commit, never saved row by row
+        verify(installmentRepository, never()).save(any(LoanInstallment.class));
+        // payoff is read from the counters, the schedule is not queried a second time
+        verify(installmentRepository, times(1)).findUnpaidByLoanIdOrderByDueDate(loanId);
     }
 
     @Test
     void listLoans_Success() {
         // Given
         Long customerId = 1L;
-        List<LoanInstallment> installments = new ArrayList<>();
-        testLoan.setInstallments(installments);
-        List<Loan> expectedLoans = List.of(testLoan);
+        List<LoanSummary> expectedLoans = List.of(new LoanSummary(1L, customerId, new BigDecimal("11000.00"),
+                12, testLoan.getCreateDate(), false, 3, new BigDecimal("8250.00"), LocalDate.now().plusMonths(1), 3L));
 
-        when(loanRepository.findLoansWithFilters(customerId, null, null))
-                .thenReturn(expectedLoans);
+        when(portfolioReadModel.get(customerId))
+                .thenReturn(new CustomerPortfolio(customerId, new BigDecimal("39000.00"), 1L, expectedLoans));
 
         // When
-        List<LoanResponse> result = loanService.listLoans(customerId, null, null);
+        CursorPage<LoanResponse> page = loanService.listLoans(customerId, null, null, null, 10);
 
         // Then
+        List<LoanResponse> result = page.getItems();
         assertNotNull(result);
         assertEquals(1, result.size());
+        assertNull(page.getNextCursor());
+        assertEquals(3L, result.get(0).getNumberOfPaidInstallment());
+        assertEquals("Not paid installment is available", result.get(0).getStatus());
+    }
+
+    @Test
+    void listLoans_FiltersAndPagesThePortfolioInMemory() {
+        // Given: four loans, every other one paid off
+        Long customerId = 1L;
+        LocalDateTime createDate = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<LoanSummary> portfolioLoans = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            boolean paid = id % 2 == 0;
+            portfolioLoans.add(new LoanSummary(id, customerId, new BigDecimal("1100.00"), 12, createDate.plusDays(id),
+                    paid, paid ? 12 : 0, paid ? BigDecimal.ZERO : new BigDecimal("1100.00"), null, 0L));
+        }
+        when(portfolioReadModel.get(customerId))
+                .thenReturn(new CustomerPortfolio(customerId, new BigDecimal("10000.00"), 0L, portfolioLoans));
+
+        // When
+        CursorPage<LoanResponse> first = loanService.listLoans(customerId, false, null, null, 1);
+        CursorPage<LoanResponse> second = loanService.listLoans(customerId, false, null, first.getNextCursor(), 1);
+
+        // Then
+        assertEquals(1L, first.getItems().get(0).getLoadId());
+        assertEquals(3L, second.getItems().get(0).getLoadId());
+        assertNull(second.getNextCursor());
+        verifyNoInteractions(loanRepository);
     }
 
     @Test
@@ -149,15 +234,48 @@ class LoanServiceTest {
                 LocalDate.now().plusDays(10));
         expectedInstallments.add(installment);
 
-        when(installmentRepository.findByLoanIdOrderByDueDate(loanId))
+        when(installmentRepository.findPageByLoanId(eq(loanId), isNull(), isNull(), any(Pageable.class)))
                 .thenReturn(expectedInstallments);
 
         // When
-        List<InstallmentsResponse> result = loanService.listInstallments(loanId);
+        List<InstallmentsResponse> result = loanService.listInstallments(loanId, null, 10).getItems();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(installment.getId(), result.get(0).getInstallmentId());
     }
+
+    @Test
+    void listInstallments_CursorResumesAfterLastRowOfPage() {
+        // Given
+        Long loanId = 1L;
+        LocalDate firstDueDate = LocalDate.of(2025, 2, 1);
+        List<LoanInstallment> rows = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            LoanInstallment installment = new LoanInstallment(testLoan, new BigDecimal("916.67"),
+                    firstDueDate.plusMonths(id - 1));
+            installment.setId(id);
+            rows.add(installment);
+        }
+        when(installmentRepository.findPageByLoanId(eq(loanId), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(rows);
+        when(installmentRepository.findPageByLoanId(eq(loanId), eq(firstDueDate.plusMonths(1)), eq(2L), any(Pageable.class)))
+                .thenReturn(rows.subList(2, 3));
+
+        // When
+        CursorPage<InstallmentsResponse> first = loanService.listInstallments(loanId, null, 2);
+        CursorPage<InstallmentsResponse> second = loanService.listInstallments(loanId, first.getNextCursor(), 2);
+
+        // Then
+        assertEquals(List.of(1L, 2L), first.getItems().stream().map(InstallmentsResponse::getInstallmentId).toList());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(3L), second.getItems().stream().map(InstallmentsResponse::getInstallmentId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void listInstallments_RejectsMalformedCursor() {
+        assertThrows(InvalidCursorException.class, () -> loanService.listInstallments(1L, "not-a-cursor", 10));
+    }
 }
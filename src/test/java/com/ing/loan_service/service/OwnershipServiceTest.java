@@ -0,0 +1,95 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.config.JwtPrincipal;
+import com.ing.loan_service.repository.LoanRepository;
+import com.ing.loan_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OwnershipServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    private OwnershipService ownershipService;
+
+    private Authentication jwtCustomer;
+
+    @BeforeEach
+    void setUp() {
+        ownershipService = new OwnershipService(userRepository, loanRepository, 100, Duration.ofMinutes(10));
+        JwtPrincipal principal = new JwtPrincipal("customer1", "ROLE_CUSTOMER", 1L);
+        jwtCustomer = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    @Test
+    void isCustomer_UsesCustomerIdClaim() {
+        // When & Then
+        assertTrue(ownershipService.isCustomer(jwtCustomer, 1L));
+        assertFalse(ownershipService.isCustomer(jwtCustomer, 2L));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void isCustomer_ResolvesCustomerIdOnceWithoutClaim() {
+        // Given
+        Authentication authentication = new UsernamePasswordAuthenticationToken("customer1", null);
+        when(userRepository.findCustomerIdByUsername("customer1")).thenReturn(Optional.of(1L));
+
+        // When & Then
+        assertTrue(ownershipService.isCustomer(authentication, 1L));
+        assertFalse(ownershipService.isCustomer(authentication, 2L));
+
+        verify(userRepository, times(1)).findCustomerIdByUsername("customer1");
+    }
+
+    @Test
+    void ownsLoan_CachesPositiveAnswers() {
+        // Given
+        when(loanRepository.existsByIdAndCustomerId(10L, 1L)).thenReturn(true);
+
+        // When & Then
+        assertTrue(ownershipService.ownsLoan(jwtCustomer, 10L));
+        assertTrue(ownershipService.ownsLoan(jwtCustomer, 10L));
+
+        verify(loanRepository, times(1)).existsByIdAndCustomerId(10L, 1L);
+    }
+
+    @Test
+    void ownsLoan_DoesNotCacheNegativeAnswers() {
+        // Given
+        when(loanRepository.existsByIdAndCustomerId(20L, 1L)).thenReturn(false, true);
+
+        // When & Then
+        assertFalse(ownershipService.ownsLoan(jwtCustomer, 20L));
+        assertTrue(ownershipService.ownsLoan(jwtCustomer, 20L));
+    }
+
+    @Test
+    void ownsLoan_UserWithoutCustomer() {
+        // Given
+        JwtPrincipal admin = new JwtPrincipal("admin", "ROLE_ADMIN", null);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities());
+
+        // When & Then
+        assertFalse(ownershipService.ownsLoan(authentication, 10L));
+
+        verifyNoInteractions(loanRepository);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.dto.InstallmentQuote;
+import com.ing.loan_service.dto.PaymentQuote;
+import com.ing.loan_service.dto.PaymentResult;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PaymentQuoteServiceTest {
+
+    @Autowired
+    private PaymentQuoteService paymentQuoteService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    void quote_PricesEachPayablePrefixExactlyAsPayLoanCharges() {
+        // Given: a 12 x 100.00 loan
+        Long loanId = createLoan("1200.00", "12");
+
+        // When
+        PaymentQuote quote = paymentQuoteService.quote(loanId);
+
+        // Then: the quoted amount for the next two installments pays exactly two
+        assertEquals(LocalDate.now(), quote.getQuoteDate());
+        assertEquals(12, quote.getUnpaidInstallments());
+        assertFalse(quote.isPayoffAvailable());
+        List<InstallmentQuote> payable = quote.getPayableInstallments();
+        assertTrue(payable.size() >= 2 && payable.size() <= 3);
+        assertEquals(payable.get(0).getEffectiveAmount().add(payable.get(1).getEffectiveAmount()),
+                payable.get(1).getCumulativeAmount());
+        assertTrue(quote.getPayoffAmount().compareTo(payable.get(payable.size() - 1).getCumulativeAmount()) > 0);
+
+        PaymentResult result = loanService.payLoan(loanId, payable.get(1).getCumulativeAmount());
+        assertEquals(2, result.getInstallmentsPaid());
+        assertEquals(payable.get(1).getCumulativeAmount(), result.getTotalAmountSpent());
+    }
+
+    @Test
+    void quote_IsCachedForTheDayAndDroppedByAPayment() {
+        // Given
+        Long loanId = createLoan("300.00", "3");
+        PaymentQuote quote = paymentQuoteService.quote(loanId);
+        assertSame(quote, paymentQuoteService.quote(loanId));
+        assertTrue(quote.isPayoffAvailable());
+
+        // When
+        loanService.payLoan(loanId, quote.getPayableInstallments().get(0).getEffectiveAmount());
+
+        // Then
+        PaymentQuote repriced = paymentQuoteService.quote(loanId);
+        assertNotSame(quote, repriced);
+        assertEquals(2, repriced.getUnpaidInstallments());
+
+        // an open loan is never turned away from the quote, payLoan checks the amount against the current rows
+        assertDoesNotThrow(() -> paymentQuoteService.checkPayable(loanId));
+
+        loanService.payLoan(loanId, repriced.getPayoffAmount());
+        PaymentQuote paidOff = paymentQuoteService.quote(loanId);
+        assertTrue(paidOff.isLoanPaid());
+        assertEquals(0, paidOff.getPayoffAmount().signum());
+
+        // while a paid off loan is refused without opening a write transaction
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> paymentQuoteService.checkPayable(loanId));
+        assertEquals("No unpaid installments found", exception.getMessage());
+    }
+
+    private Long createLoan(String amount, String installments) {
+        Customer customer = customerRepository.save(new Customer("Quoted", "Customer", new BigDecimal("10000.00")));
+        return loanService.createLoan(
+                new CreateLoanRequest(customer.getId(), new BigDecimal(amount), 0.0, installments)).getLoadId();
+    }
+}
@@ -0,0 +1,105 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.dto.CreateLoanRequest;
+import com.ing.loan_service.dto.LoanSummary;
+import com.ing.loan_service.dto.PortfolioCheckResult;
+import com.ing.loan_service.model.Customer;
+import com.ing.loan_service.repository.CustomerRepository;
+import com.ing.loan_service.repository.LoanRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class PortfolioReadModelTest {
+
+    @Autowired
+    private PortfolioReadModel portfolioReadModel;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void committedChangesArePatchedIntoTheCachedPortfolio() {
+        // Given: a cached portfolio with one loan
+        Customer customer = customerRepository.save(new Customer("Portfolio", "Customer", new BigDecimal("10000.00")));
+        Long firstLoanId = loanService.createLoan(
+                new CreateLoanRequest(customer.getId(), new BigDecimal("1200.00"), 0.0, "12")).getLoadId();
+        assertEquals(1, portfolioReadModel.get(customer.getId()).loans().size());
+
+        // When
+        Long secondLoanId = loanService.createLoan(
+                new CreateLoanRequest(customer.getId(), new BigDecimal("600.00"), 0.0, "6")).getLoadId();
+        loanService.payLoan(firstLoanId, new BigDecimal("100.00"));
+
+        // Then
+        CustomerPortfolio portfolio = portfolioReadModel.get(customer.getId());
+        assertEquals(0, portfolio.availableCredit().compareTo(new BigDecimal("8200.00")));
+        assertEquals(2, portfolio.loans().size());
+        LoanSummary first = portfolio.loans().get(0);
+        assertEquals(firstLoanId, first.getLoanId());
+        assertEquals(1, first.getPaidInstallmentCount());
+        assertEquals(secondLoanId, portfolio.loans().get(1).getLoanId());
+        assertTrue(portfolioReadModel.check(customer.getId()).isConsistent());
+    }
+
+    @Test
+    void driftIsReportedAndRepairedByRebuild() {
+        // Given
+        Customer customer = customerRepository.save(new Customer("Drifting", "Customer", new BigDecimal("10000.00")));
+        Long loanId = loanService.createLoan(
+                new CreateLoanRequest(customer.getId(), new BigDecimal("1200.00"), 0.0, "12")).getLoadId();
+        portfolioReadModel.get(customer.getId());
+
+        // When: a write that bypasses LoanService
+        jdbcTemplate.update("UPDATE loans SET is_paid = TRUE WHERE id = ?", loanId);
+
+        // Then
+        PortfolioCheckResult drifted = portfolioReadModel.check(customer.getId());
+        assertTrue(drifted.isCached());
+        assertFalse(drifted.isConsistent());
+        assertEquals(1, drifted.getDifferences().size());
+
+        PortfolioCheckResult rebuilt = portfolioReadModel.rebuild(customer.getId());
+        assertTrue(rebuilt.isConsistent());
+        assertTrue(portfolioReadModel.get(customer.getId()).loans().get(0).getIsPaid());
+    }
+
+    @Test
+    void failedRefreshEvictsTheEntryInsteadOfFailingTheCommittedWrite() {
+        // Given: a cached portfolio, and a database that fails the after-commit reads
+        LoanRepository loanRepository = mock(LoanRepository.class);
+        CustomerRepository customers = mock(CustomerRepository.class);
+        PortfolioReadModel readModel = new PortfolioReadModel(loanRepository, customers, 100);
+        when(customers.findById(7L)).thenReturn(Optional.of(new Customer("Failing", "Refresh", new BigDecimal("1000.00"))));
+        when(loanRepository.findLoansWithFilters(eq(7L), isNull(), isNull(), isNull(), isNull(), any()))
+                .thenReturn(List.of());
+        readModel.get(7L);
+        when(loanRepository.findSummaryById(1L)).thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        // When
+        assertDoesNotThrow(() -> readModel.onPortfolioChanged(new PortfolioChangedEvent(7L, 1L)));
+
+        // Then: the next read loads the portfolio again
+        readModel.get(7L);
+        verify(customers, times(2)).findById(7L);
+    }
+}
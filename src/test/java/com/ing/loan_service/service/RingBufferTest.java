@@ -0,0 +1,90 @@
+package com.ing.loan_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    @Test
+    void offer_RejectsWhenFullAndAcceptsOnceConsumed() {
+        // Given
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        // When / Then
+        assertFalse(buffer.offer(4));
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void offer_ConcurrentProducersLoseNothing() throws Exception {
+        // Given
+        int producers = 4;
+        int perProducer = 100_000;
+        RingBuffer<Long> buffer = new RingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When: the producers spin on a full ring while this thread consumes
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (long i = base; i < base + perProducer; i++) {
+                    while (!buffer.offer(i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        boolean[] seen = new boolean[producers * perProducer];
+        long[] lastPerProducer = new long[producers];
+        Arrays.fill(lastPerProducer, -1);
+        for (int received = 0; received < seen.length; ) {
+            Long element = buffer.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = (int) (element / perProducer);
+            // each producer's elements arrive in the order it offered them
+            assertTrue(element > lastPerProducer[producer]);
+            lastPerProducer[producer] = element;
+            assertFalse(seen[element.intValue()]);
+            seen[element.intValue()] = true;
+            received++;
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void constructor_RequiresAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(1000));
+    }
+}
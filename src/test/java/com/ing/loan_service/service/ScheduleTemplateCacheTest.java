@@ -0,0 +1,57 @@
+package com.ing.loan_service.service;
+
+import com.ing.loan_service.model.Money;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleTemplateCacheTest {
+
+    private final ScheduleTemplateCache scheduleTemplateCache = new ScheduleTemplateCache();
+
+    @Test
+    void get_DueDatesMatchFirstOfFollowingMonths() {
+        // When
+        ScheduleTemplate template = scheduleTemplateCache.get(LocalDate.of(2025, 1, 31), 24);
+
+        // Then
+        assertEquals(24, template.size());
+        for (int i = 1; i <= 24; i++) {
+            assertEquals(LocalDate.of(2025, 1, 31).plusMonths(i).withDayOfMonth(1), template.dueDates().get(i - 1));
+        }
+    }
+
+    @Test
+    void get_SharesTemplateWithinMonthAndRefreshesOnRollover() {
+        // When
+        ScheduleTemplate first = scheduleTemplateCache.get(LocalDate.of(2030, 3, 1), 12);
+        ScheduleTemplate sameMonth = scheduleTemplateCache.get(LocalDate.of(2030, 3, 31), 12);
+        ScheduleTemplate nextMonth = scheduleTemplateCache.get(LocalDate.of(2030, 4, 1), 12);
+
+        // Then
+        assertSame(first, sameMonth);
+        assertNotSame(first, nextMonth);
+        assertEquals(YearMonth.of(2030, 4), nextMonth.originationMonth());
+        assertEquals(LocalDate.of(2030, 5, 1), nextMonth.dueDates().get(0));
+    }
+
+    @Test
+    void installmentAmount_SplitAddsUpToTotal() {
+        for (int installments : new int[]{6, 9, 12, 24}) {
+            ScheduleTemplate template = ScheduleTemplate.of(YearMonth.of(2025, 1), installments);
+            for (long cents = 1; cents < 100_000; cents += 7) {
+                Money total = Money.ofCents(cents);
+                long sum = 0;
+                for (int i = 0; i < installments; i++) {
+                    long amount = template.installmentAmount(total, i).cents();
+                    assertTrue(amount >= 0 && amount - cents / installments <= 1);
+                    sum += amount;
+                }
+                assertEquals(cents, sum);
+            }
+        }
+    }
+}